@@ -0,0 +1,105 @@
+package org.imdc.cybersciences.ser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class BenchmarkPayloads {
+    public static final int EVENTS_PER_PAGE = 100;
+    public static final int CHANNELS = 32;
+
+    public static String[] eventRecords(int count, long seed) {
+        Random random = new Random(seed);
+        String[] ret = new String[count];
+        int seconds = 0x2F000000;
+        for (int i = 0; i < count; i++) {
+            seconds += random.nextInt(5);
+
+            int eventCode = random.nextInt(10) == 0 ? 6 + random.nextInt(20) : 1;
+            int input = random.nextInt(CHANNELS);
+            int status = random.nextInt(2);
+            int dst = random.nextInt(2);
+            int timeQuality = random.nextInt(4);
+            int ms = random.nextInt(1000);
+            int sequenceNumber = 100000 + i;
+            int coincidentStatus = random.nextInt();
+
+            int[] words = new int[]{
+                    eventCode | (input << 5) | (status << 10) | (dst << 11),
+                    (timeQuality << 14) | ms,
+                    seconds & 0xFFFF,
+                    seconds >>> 16,
+                    sequenceNumber & 0xFFFF,
+                    sequenceNumber >>> 16,
+                    coincidentStatus & 0xFFFF,
+                    coincidentStatus >>> 16
+            };
+
+            StringBuilder sb = new StringBuilder(39);
+            for (int w = 0; w < words.length; w++) {
+                if (w > 0) {
+                    sb.append('-');
+                }
+                sb.append(String.format("%04x", words[w]));
+            }
+            ret[i] = sb.toString();
+        }
+        return ret;
+    }
+
+    public static byte[] eventsPage(String[] records) {
+        StringBuilder sb = new StringBuilder("{\"events\":[");
+        for (int i = 0; i < records.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"r\":\"").append(records[i]).append("\"}");
+        }
+        sb.append("]}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] eventStatus() {
+        return "{\"NumberOfEvents\":8192,\"FirstRecord\":1204,\"LastRecord\":1203,\"LastSequenceNumber\":208371}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] channelStatus() {
+        return "{\"status\":2863311530}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] channelsData() {
+        StringBuilder sb = new StringBuilder("{\"channels_data\":[");
+        for (int i = 0; i < CHANNELS; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"secondsUTC\":").append(1700000000L + i)
+                    .append(",\"dst_active\":").append(i % 2)
+                    .append(",\"value\":").append(1000 + i * 7)
+                    .append('}');
+        }
+        sb.append("]}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] channelNames() {
+        StringBuilder sb = new StringBuilder("{\"channels_name_ext\":[");
+        for (int i = 0; i < CHANNELS; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(String.format("{\"channel\":\"%02d\",\"name\":\"Breaker %d Trip\",\"offText\":\"Open\",\"onText\":\"Closed\"}", i + 1, i + 1));
+        }
+        sb.append("]}");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] diag() {
+        return ("{\"mac1\":\"00:50:C2:9F:10:2A\",\"mac2\":\"00:50:C2:9F:10:2B\",\"eport\":\"1\",\"model\":\"SER-32e\"," +
+                "\"device_name\":\"Substation 1 SER\",\"device_ID\":\"SER01\",\"catalog_number\":\"SER-32e-C\"," +
+                "\"dom\":\"2021-06-14\",\"serial_number\":\"3201-004217\",\"hardware_version\":\"B\"," +
+                "\"firmware_version\":\"4.2.1\",\"build\":1187,\"cfm0_version\":\"2.3\",\"cfm1_version\":\"2.3\"," +
+                "\"ufm_version\":\"1.7\",\"pcm_version\":\"1.1\",\"storage_total\":2097152,\"storage_free\":1540322," +
+                "\"storage_scale\":1024,\"secondsUTC\":1700000000,\"dst_active\":0,\"time_zone_offset\":-300," +
+                "\"alt_date_format\":0,\"alt_time_format\":0,\"time_source_setup\":2,\"slot1\":1,\"slot2\":0}").getBytes(StandardCharsets.UTF_8);
+    }
+}
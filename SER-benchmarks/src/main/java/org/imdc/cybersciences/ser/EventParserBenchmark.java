@@ -0,0 +1,38 @@
+package org.imdc.cybersciences.ser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventParserBenchmark {
+    private static final int RECORDS = 1024;
+
+    private String[] records;
+    private int index;
+
+    @Setup
+    public void setup() {
+        records = BenchmarkPayloads.eventRecords(RECORDS, 1);
+    }
+
+    @Benchmark
+    public EventParser.Event parse() {
+        String record = records[index++ & (RECORDS - 1)];
+        return EventParser.parse(record);
+    }
+}
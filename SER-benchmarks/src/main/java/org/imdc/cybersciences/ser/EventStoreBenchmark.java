@@ -0,0 +1,104 @@
+package org.imdc.cybersciences.ser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventStoreBenchmark {
+    @Param({"MultiRowMerge", "MultiRowPlain", "BatchPlain"})
+    private String loaderName;
+
+    @Param({"Standard", "Compact"})
+    private String layoutName;
+
+    private Connection connection;
+    private EventLoader loader;
+    private EventTarget target;
+    private List<EventParser.Event> events;
+    private List<String> replayDevices;
+    private long device;
+
+    @Setup
+    public void setup() throws Exception {
+        EventLayout layout = EventLayout.valueOf(layoutName);
+        connection = H2Connections.open("EventStoreBenchmark", layout);
+        target = H2Connections.target(layout);
+        loader = loader(loaderName);
+
+        String[] records = BenchmarkPayloads.eventRecords(BenchmarkPayloads.EVENTS_PER_PAGE, 1);
+        EventParser.Event[] parsed = new EventParser.Event[records.length];
+        for (int i = 0; i < records.length; i++) {
+            parsed[i] = EventParser.parse(records[i]);
+        }
+        events = Arrays.asList(parsed);
+
+        replayDevices = Collections.nCopies(events.size(), "SER.Replay");
+        loader.load(connection, target, events, replayDevices);
+        connection.commit();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws Exception {
+        H2Connections.truncate(connection);
+        loader.load(connection, target, events, replayDevices);
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    /**
+     * A page of new events, stored under a fresh device name each time so every row is inserted.
+     */
+    @Benchmark
+    public void storeNewEvents() throws Exception {
+        loader.load(connection, target, events, Collections.nCopies(events.size(), "SER" + device++));
+        connection.commit();
+    }
+
+    /**
+     * A page that is already stored, as after a journal replay or a checkpoint that fell behind, so every row is a duplicate.
+     */
+    @Benchmark
+    public void replayStoredEvents() throws Exception {
+        loader.load(connection, target, events, replayDevices);
+        connection.commit();
+    }
+
+    private static EventLoader loader(String name) {
+        switch (name) {
+            case "MultiRowMerge":
+                return new EventLoader.MultiRowValues(200, EventLoader.InsertSyntax.H2Merge);
+            case "MultiRowPlain":
+                return new EventLoader.MultiRowValues(200, EventLoader.InsertSyntax.Plain);
+            case "BatchPlain":
+                return new EventLoader.BatchInsert(EventLoader.InsertSyntax.Plain);
+            default:
+                throw new IllegalArgumentException("Unknown loader " + name);
+        }
+    }
+}
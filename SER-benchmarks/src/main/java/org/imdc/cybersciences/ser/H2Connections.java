@@ -0,0 +1,49 @@
+package org.imdc.cybersciences.ser;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class H2Connections {
+    public static final String TABLE_NAME = "SER_EVENTS";
+
+    /**
+     * Opens an in-memory database with an events table in the given layout, keyed the way the gateway keys it. Auto-commit is off so
+     * loads run in a transaction like they do in EventWriter.
+     */
+    public static Connection open(String name, EventLayout layout) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + TABLE_NAME);
+            if (layout == EventLayout.Compact) {
+                stmt.execute("CREATE TABLE " + TABLE_NAME + " (" +
+                        "EVENT_ID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, DEVICE VARCHAR(255), " +
+                        "SEQUENCE_NUMBER INT, T_STAMP BIGINT, EVENT_CODE SMALLINT, CHANNEL SMALLINT, STATUS SMALLINT, " +
+                        "COINCIDENT_STATUS INT, TIME_QUALITY SMALLINT)");
+            } else {
+                stmt.execute("CREATE TABLE " + TABLE_NAME + " (" +
+                        "EVENT_ID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, DEVICE VARCHAR(255), " +
+                        "SEQUENCE_NUMBER INT, T_STAMP BIGINT, EVENT_CODE INT, EVENT_TYPE VARCHAR(255), " +
+                        "CHANNEL INT, STATUS VARCHAR(255), COINCIDENT_STATUS BIGINT, TIME_QUALITY VARCHAR(255))");
+            }
+        }
+        EventLoader.forConnection(conn).createKeyIndex(conn, target(layout));
+        conn.setAutoCommit(false);
+        return conn;
+    }
+
+    public static EventTarget target(EventLayout layout) {
+        if (layout == EventLayout.Compact) {
+            return new EventTarget(TABLE_NAME, "\"", layout, "SEQUENCE_NUMBER", "T_STAMP", "EVENT_CODE", "CHANNEL", "STATUS", "COINCIDENT_STATUS", "TIME_QUALITY", "DEVICE");
+        }
+        return new EventTarget(TABLE_NAME, "\"", layout, "SEQUENCE_NUMBER", "T_STAMP", "EVENT_CODE", "EVENT_TYPE", "CHANNEL", "STATUS", "COINCIDENT_STATUS", "TIME_QUALITY", "DEVICE");
+    }
+
+    public static void truncate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("TRUNCATE TABLE " + TABLE_NAME);
+        }
+        conn.commit();
+    }
+}
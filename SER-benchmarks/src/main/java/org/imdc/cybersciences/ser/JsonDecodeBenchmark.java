@@ -0,0 +1,81 @@
+package org.imdc.cybersciences.ser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonDecodeBenchmark {
+    private JsonStreamReader reader;
+    private ByteArrayInputStream eventsPage, eventStatus, channelStatus, channelsData, channelNames, diag;
+
+    @Setup
+    public void setup() {
+        reader = new JsonStreamReader();
+        eventsPage = new ByteArrayInputStream(BenchmarkPayloads.eventsPage(BenchmarkPayloads.eventRecords(BenchmarkPayloads.EVENTS_PER_PAGE, 1)));
+        eventStatus = new ByteArrayInputStream(BenchmarkPayloads.eventStatus());
+        channelStatus = new ByteArrayInputStream(BenchmarkPayloads.channelStatus());
+        channelsData = new ByteArrayInputStream(BenchmarkPayloads.channelsData());
+        channelNames = new ByteArrayInputStream(BenchmarkPayloads.channelNames());
+        diag = new ByteArrayInputStream(BenchmarkPayloads.diag());
+    }
+
+    private JsonStreamReader read(ByteArrayInputStream in) {
+        in.reset();
+        return reader.reset(in);
+    }
+
+    @Benchmark
+    public EventBatch eventsPage() throws Exception {
+        EventBatch batch = new EventBatch();
+        SERResponseDecoder.readEvents(read(eventsPage), batch);
+        return batch;
+    }
+
+    @Benchmark
+    public SERDevice.EventStatus eventStatus() throws Exception {
+        return SERDevice.EventStatus.fromReader(read(eventStatus));
+    }
+
+    @Benchmark
+    public long channelStatus() throws Exception {
+        return SERResponseDecoder.readChannelStatus(read(channelStatus));
+    }
+
+    @Benchmark
+    public void channelsData(Blackhole bh) throws Exception {
+        SERResponseDecoder.readChannelData(read(channelsData), (index, secondsUTC, dstActive, value) -> {
+            bh.consume(index);
+            bh.consume(secondsUTC);
+            bh.consume(dstActive);
+            bh.consume(value);
+        });
+    }
+
+    @Benchmark
+    public List<SERDevice.ChannelConfig> channelNames() throws Exception {
+        return SERResponseDecoder.readChannelNames(read(channelNames));
+    }
+
+    @Benchmark
+    public void diag(Blackhole bh) throws Exception {
+        SERResponseDecoder.readDiag(read(diag), (field, value) -> bh.consume(value));
+    }
+}
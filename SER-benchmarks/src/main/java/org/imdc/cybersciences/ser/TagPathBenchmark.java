@@ -0,0 +1,61 @@
+package org.imdc.cybersciences.ser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagPathBenchmark {
+    private static final String DEVICE = "Substation 1.SER 01";
+    private static final String TAG = "Channels/Channel01/Value";
+
+    private TagWriteBatch batch;
+    private TagHandle handle;
+
+    @Setup
+    public void setup() {
+        TagManager tagManager = new TagManager();
+        batch = tagManager.newBatch();
+        handle = tagManager.resolve(String.format("%s/%s", DEVICE, TAG));
+    }
+
+    @Benchmark
+    public String fixTagPath() {
+        return TagManager.fixTagPath(String.format("%s/%s", DEVICE, TAG));
+    }
+
+    @Benchmark
+    public String sanitize() {
+        return TagManager.sanitize(DEVICE);
+    }
+
+    @Benchmark
+    public int batchUpdateByPath() {
+        batch.update(String.format("%s/%s", DEVICE, TAG), Boolean.TRUE);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    @Benchmark
+    public int batchUpdateByHandle() {
+        batch.update(handle, Boolean.TRUE);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+}
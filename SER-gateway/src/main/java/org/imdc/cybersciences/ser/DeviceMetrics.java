@@ -0,0 +1,146 @@
+package org.imdc.cybersciences.ser;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class DeviceMetrics {
+    public static final long PUBLISH_INTERVAL = 10000;
+    private static final int WINDOW_SLOTS = 6;
+
+    private final String registryPrefix;
+    private final LatencyHistogram[] histograms;
+    private final LatencyHistogram.Snapshot[] snapshots;
+    private final LongAdder requests, errors, bytes, events;
+    private volatile double eventsPerSecond, bytesPerSecond;
+    private long lastPublishTime, lastEvents, lastBytes;
+
+    public DeviceMetrics(String registryPrefix) {
+        this.registryPrefix = registryPrefix;
+        this.histograms = new LatencyHistogram[Timer.TIMERS.length];
+        this.snapshots = new LatencyHistogram.Snapshot[Timer.TIMERS.length];
+        for (Timer timer : Timer.TIMERS) {
+            histograms[timer.ordinal()] = new LatencyHistogram(WINDOW_SLOTS);
+            snapshots[timer.ordinal()] = LatencyHistogram.Snapshot.EMPTY;
+        }
+        this.requests = new LongAdder();
+        this.errors = new LongAdder();
+        this.bytes = new LongAdder();
+        this.events = new LongAdder();
+        this.lastPublishTime = System.nanoTime();
+    }
+
+    public LatencyHistogram histogram(Timer timer) {
+        return histograms[timer.ordinal()];
+    }
+
+    public void record(Timer timer, long startNanos) {
+        histograms[timer.ordinal()].recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public void request(long responseBytes) {
+        requests.increment();
+        bytes.add(responseBytes);
+    }
+
+    public void error() {
+        errors.increment();
+    }
+
+    public void events(int count) {
+        events.add(count);
+    }
+
+    public synchronized void publish(TagWriteBatch batch, Function<String, TagHandle> handles) {
+        long now = System.nanoTime();
+        double elapsed = Math.max(1, now - lastPublishTime) / 1e9;
+        long totalEvents = events.sum(), totalBytes = bytes.sum();
+        eventsPerSecond = (totalEvents - lastEvents) / elapsed;
+        bytesPerSecond = (totalBytes - lastBytes) / elapsed;
+        lastPublishTime = now;
+        lastEvents = totalEvents;
+        lastBytes = totalBytes;
+
+        for (Timer timer : Timer.TIMERS) {
+            LatencyHistogram.Snapshot snapshot = histograms[timer.ordinal()].snapshot();
+            snapshots[timer.ordinal()] = snapshot;
+            // Each publish rotates one slot, so the percentiles cover the last WINDOW_SLOTS publish intervals
+            histograms[timer.ordinal()].rotate();
+
+            String prefix = "Status/Metrics/" + timer.name() + "/";
+            batch.update(handles.apply(prefix + "Count"), snapshot.getCount());
+            batch.update(handles.apply(prefix + "P50"), snapshot.getP50());
+            batch.update(handles.apply(prefix + "P95"), snapshot.getP95());
+            batch.update(handles.apply(prefix + "P99"), snapshot.getP99());
+            batch.update(handles.apply(prefix + "Max"), snapshot.getMax());
+        }
+
+        batch.update(handles.apply("Status/Metrics/Requests"), requests.sum());
+        batch.update(handles.apply("Status/Metrics/Errors"), errors.sum());
+        batch.update(handles.apply("Status/Metrics/Bytes"), totalBytes);
+        batch.update(handles.apply("Status/Metrics/Events"), totalEvents);
+        batch.update(handles.apply("Status/Metrics/EventsPerSecond"), eventsPerSecond);
+        batch.update(handles.apply("Status/Metrics/BytesPerSecond"), bytesPerSecond);
+    }
+
+    public void register(MetricRegistry registry) {
+        unregister(registry);
+
+        for (Timer timer : Timer.TIMERS) {
+            String name = MetricRegistry.name(registryPrefix, timer.name());
+            registry.register(MetricRegistry.name(name, "count"), (Gauge<Long>) () -> snapshots[timer.ordinal()].getCount());
+            registry.register(MetricRegistry.name(name, "p50"), (Gauge<Double>) () -> snapshots[timer.ordinal()].getP50());
+            registry.register(MetricRegistry.name(name, "p95"), (Gauge<Double>) () -> snapshots[timer.ordinal()].getP95());
+            registry.register(MetricRegistry.name(name, "p99"), (Gauge<Double>) () -> snapshots[timer.ordinal()].getP99());
+            registry.register(MetricRegistry.name(name, "max"), (Gauge<Double>) () -> snapshots[timer.ordinal()].getMax());
+        }
+
+        registry.register(MetricRegistry.name(registryPrefix, "requests"), (Gauge<Long>) requests::sum);
+        registry.register(MetricRegistry.name(registryPrefix, "errors"), (Gauge<Long>) errors::sum);
+        registry.register(MetricRegistry.name(registryPrefix, "bytes"), (Gauge<Long>) bytes::sum);
+        registry.register(MetricRegistry.name(registryPrefix, "events"), (Gauge<Long>) events::sum);
+        registry.register(MetricRegistry.name(registryPrefix, "eventsPerSecond"), (Gauge<Double>) () -> eventsPerSecond);
+        registry.register(MetricRegistry.name(registryPrefix, "bytesPerSecond"), (Gauge<Double>) () -> bytesPerSecond);
+    }
+
+    public void unregister(MetricRegistry registry) {
+        registry.removeMatching((name, metric) -> name.startsWith(registryPrefix + "."));
+    }
+
+    public enum Timer {
+        HttpDiag("/diag"),
+        HttpChannelNames("/channels/name/ext"),
+        HttpChannelStatus("/channels/status"),
+        HttpChannelData("/channels/data"),
+        HttpEventStatus("/events/last"),
+        HttpEvents("/events"),
+        JsonDecode(null),
+        EventParse(null),
+        DbStore(null);
+
+        public static final Timer[] TIMERS = values();
+
+        private final String path;
+
+        Timer(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public static Timer forPath(String uri) {
+            int query = uri.indexOf('?');
+            String path = query < 0 ? uri : uri.substring(0, query);
+            for (Timer timer : TIMERS) {
+                if (path.equals(timer.path)) {
+                    return timer;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.imdc.cybersciences.ser;
+
+import java.util.Objects;
+
+public class DiagnosticsSnapshot {
+    private final Object[] values;
+    private final boolean[] present;
+
+    public DiagnosticsSnapshot() {
+        this.values = new Object[SERResponseDecoder.DiagField.FIELDS.length];
+        this.present = new boolean[SERResponseDecoder.DiagField.FIELDS.length];
+    }
+
+    public void set(SERResponseDecoder.DiagField field, Object value) {
+        values[field.ordinal()] = value;
+        present[field.ordinal()] = true;
+    }
+
+    public Object get(SERResponseDecoder.DiagField field) {
+        return values[field.ordinal()];
+    }
+
+    public boolean has(SERResponseDecoder.DiagField field) {
+        return present[field.ordinal()];
+    }
+
+    public int diff(DiagnosticsSnapshot previous, SERResponseDecoder.DiagHandler handler) throws Exception {
+        int changed = 0;
+        for (SERResponseDecoder.DiagField field : SERResponseDecoder.DiagField.FIELDS) {
+            int i = field.ordinal();
+            if (!present[i]) {
+                continue;
+            }
+
+            if (previous == null || !previous.present[i] || !Objects.equals(previous.values[i], values[i])) {
+                handler.onField(field, values[i]);
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
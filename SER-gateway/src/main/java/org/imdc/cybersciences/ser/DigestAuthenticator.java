@@ -0,0 +1,181 @@
+package org.imdc.cybersciences.ser;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DigestAuthenticator {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String username, password;
+    private final SecureRandom random;
+    private final AtomicLong challenges, staleNonces;
+    private String realm, nonce, opaque, algorithm, qop, ha1;
+    private long nonceCount;
+
+    public DigestAuthenticator(String username, String password) {
+        this.username = username;
+        this.password = password;
+        this.random = new SecureRandom();
+        this.challenges = new AtomicLong();
+        this.staleNonces = new AtomicLong();
+    }
+
+    public long getChallenges() {
+        return challenges.get();
+    }
+
+    public long getStaleNonces() {
+        return staleNonces.get();
+    }
+
+    public synchronized boolean challenge(String header) {
+        if (header == null || !header.regionMatches(true, 0, "Digest", 0, 6)) {
+            return false;
+        }
+
+        Map<String, String> params = parse(header.substring(6));
+        String challengeNonce = params.get("nonce");
+        if (challengeNonce == null) {
+            return false;
+        }
+
+        challenges.incrementAndGet();
+        if ("true".equalsIgnoreCase(params.get("stale"))) {
+            staleNonces.incrementAndGet();
+        }
+
+        String challengeRealm = params.getOrDefault("realm", "");
+        String challengeAlgorithm = params.getOrDefault("algorithm", "MD5");
+        if (!challengeRealm.equals(realm) || !challengeAlgorithm.equalsIgnoreCase(algorithm)) {
+            ha1 = null;
+        }
+
+        realm = challengeRealm;
+        algorithm = challengeAlgorithm;
+        nonce = challengeNonce;
+        opaque = params.get("opaque");
+        qop = selectQop(params.get("qop"));
+        nonceCount = 0;
+        return true;
+    }
+
+    public synchronized String authorize(String method, String uri) {
+        if (nonce == null) {
+            return null;
+        }
+
+        String nc = String.format("%08x", ++nonceCount);
+        String cnonce = cnonce();
+
+        String key = ha1;
+        if (key == null) {
+            key = md5(username + ":" + realm + ":" + password);
+            ha1 = key;
+        }
+        if ("MD5-sess".equalsIgnoreCase(algorithm)) {
+            key = md5(key + ":" + nonce + ":" + cnonce);
+        }
+
+        String ha2 = md5(method + ":" + uri);
+        String response = qop == null ? md5(key + ":" + nonce + ":" + ha2) : md5(key + ":" + nonce + ":" + nc + ":" + cnonce + ":" + qop + ":" + ha2);
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("Digest username=\"").append(username).append('"');
+        sb.append(", realm=\"").append(realm).append('"');
+        sb.append(", nonce=\"").append(nonce).append('"');
+        sb.append(", uri=\"").append(uri).append('"');
+        if (qop != null) {
+            sb.append(", qop=").append(qop);
+            sb.append(", nc=").append(nc);
+            sb.append(", cnonce=\"").append(cnonce).append('"');
+        }
+        sb.append(", response=\"").append(response).append('"');
+        if (opaque != null) {
+            sb.append(", opaque=\"").append(opaque).append('"');
+        }
+        sb.append(", algorithm=").append(algorithm);
+        return sb.toString();
+    }
+
+    private String cnonce() {
+        byte[] bytes = new byte[8];
+        random.nextBytes(bytes);
+        return hex(bytes);
+    }
+
+    private static String selectQop(String offered) {
+        if (offered == null) {
+            return null;
+        }
+
+        for (String option : offered.split(",")) {
+            if (option.trim().equalsIgnoreCase("auth")) {
+                return "auth";
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> parse(String params) {
+        Map<String, String> ret = new HashMap<>();
+        int i = 0, len = params.length();
+        while (i < len) {
+            while (i < len && (params.charAt(i) == ',' || params.charAt(i) <= ' ')) {
+                i++;
+            }
+
+            int nameStart = i;
+            while (i < len && params.charAt(i) != '=' && params.charAt(i) != ',') {
+                i++;
+            }
+            String name = params.substring(nameStart, i).trim().toLowerCase();
+            if (i >= len || params.charAt(i) != '=') {
+                continue;
+            }
+            i++;
+
+            StringBuilder value = new StringBuilder();
+            if (i < len && params.charAt(i) == '"') {
+                i++;
+                while (i < len && params.charAt(i) != '"') {
+                    if (params.charAt(i) == '\\' && i + 1 < len) {
+                        i++;
+                    }
+                    value.append(params.charAt(i++));
+                }
+                i++;
+            } else {
+                while (i < len && params.charAt(i) != ',') {
+                    value.append(params.charAt(i++));
+                }
+            }
+
+            if (!name.isEmpty()) {
+                ret.put(name, value.toString().trim());
+            }
+        }
+        return ret;
+    }
+
+    private static String md5(String value) {
+        try {
+            return hex(MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.ISO_8859_1)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
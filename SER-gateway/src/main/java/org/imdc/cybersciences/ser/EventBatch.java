@@ -0,0 +1,39 @@
+package org.imdc.cybersciences.ser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventBatch {
+    private List<EventParser.Event> events;
+
+    public EventBatch() {
+        this.events = new ArrayList<>();
+    }
+
+    public void add(EventParser.Event event) {
+        events.add(event);
+    }
+
+    public List<EventParser.Event> getEvents() {
+        return events;
+    }
+
+    public EventParser.Event getLastEvent() {
+        return events.isEmpty() ? null : events.get(events.size() - 1);
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    @Override
+    public String toString() {
+        return "EventBatch{" +
+                "events=" + events.size() +
+                '}';
+    }
+}
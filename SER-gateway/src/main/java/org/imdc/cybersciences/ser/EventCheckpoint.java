@@ -0,0 +1,121 @@
+package org.imdc.cybersciences.ser;
+
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+public class EventCheckpoint {
+    private static final String STORED_KEY = "storedSequenceNumber";
+
+    private final Logger logger;
+    private final Path path;
+    private Integer polledSequenceNumber, storedSequenceNumber;
+
+    public EventCheckpoint(Logger logger, File dir, String deviceName) {
+        this.logger = logger;
+        this.path = new File(dir, deviceName.replaceAll("[^A-Za-z0-9._-]", "_") + ".properties").toPath();
+    }
+
+    public synchronized void load() {
+        polledSequenceNumber = null;
+        storedSequenceNumber = null;
+
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            props.load(in);
+            String value = props.getProperty(STORED_KEY);
+            if (value != null) {
+                storedSequenceNumber = Integer.parseInt(value.trim());
+                polledSequenceNumber = storedSequenceNumber;
+            }
+        } catch (Exception ex) {
+            logger.warn("Error loading event checkpoint from {}", path, ex);
+        }
+    }
+
+    public synchronized Integer getPolledSequenceNumber() {
+        return polledSequenceNumber;
+    }
+
+    public synchronized Integer getStoredSequenceNumber() {
+        return storedSequenceNumber;
+    }
+
+    public synchronized void polled(int sequenceNumber) {
+        polledSequenceNumber = sequenceNumber;
+    }
+
+    /**
+     * Returns the sequence number to poll after, given the newest sequence number and the number of events the device reports. A device
+     * behind the checkpoint was reset (event log cleared, device replaced or reflashed), so both positions move back to just before the
+     * oldest event it still holds; otherwise nothing would be fetched until it counted past the old high mark.
+     */
+    public synchronized Integer resume(int lastSequenceNumber, int numberOfEvents) {
+        if (polledSequenceNumber != null && lastSequenceNumber < polledSequenceNumber) {
+            int windowStart = Math.max(0, lastSequenceNumber - numberOfEvents);
+            logger.warn("Device sequence number {} is behind the event checkpoint {}, its event log was reset. Fetching its {} events again.", lastSequenceNumber, polledSequenceNumber, numberOfEvents);
+            polledSequenceNumber = windowStart;
+            storedSequenceNumber = windowStart;
+            save();
+        }
+        return polledSequenceNumber;
+    }
+
+    public synchronized void stored(int sequenceNumber) {
+        if (storedSequenceNumber != null && sequenceNumber <= storedSequenceNumber) {
+            return;
+        }
+
+        storedSequenceNumber = sequenceNumber;
+        save();
+    }
+
+    public synchronized void reconcile(Integer databaseSequenceNumber) {
+        if (databaseSequenceNumber == null) {
+            return;
+        }
+
+        if (storedSequenceNumber == null || databaseSequenceNumber > storedSequenceNumber) {
+            logger.debug("Advancing event checkpoint from {} to {} found in database", storedSequenceNumber, databaseSequenceNumber);
+            storedSequenceNumber = databaseSequenceNumber;
+            save();
+        }
+
+        if (polledSequenceNumber == null || storedSequenceNumber > polledSequenceNumber) {
+            polledSequenceNumber = storedSequenceNumber;
+        }
+    }
+
+    private void save() {
+        Properties props = new Properties();
+        props.setProperty(STORED_KEY, Integer.toString(storedSequenceNumber));
+
+        try {
+            Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                props.store(out, null);
+            }
+
+            try {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            logger.warn("Error saving event checkpoint to {}", path, ex);
+        }
+    }
+}
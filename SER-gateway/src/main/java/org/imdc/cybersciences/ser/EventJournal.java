@@ -0,0 +1,176 @@
+package org.imdc.cybersciences.ser;
+
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+public class EventJournal {
+    private static final int MAGIC = 0x53455231;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 32;
+    private static final int CAPACITY_OFFSET = 8, WRITE_OFFSET = 16, ACK_OFFSET = 24;
+
+    private static final EventParser.EventCode[] EVENT_CODES = EventParser.EventCode.values();
+    private static final EventParser.InputStatus[] INPUT_STATUSES = EventParser.InputStatus.values();
+    private static final EventParser.DST[] DSTS = EventParser.DST.values();
+    private static final EventParser.TimeQuality[] TIME_QUALITIES = EventParser.TimeQuality.values();
+
+    private final Logger logger;
+    private final File file;
+    private final int requestedCapacity;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private long writePosition, ackPosition;
+    private Integer lastSequenceNumber;
+
+    public EventJournal(Logger logger, File dir, String deviceName, int capacity) {
+        this.logger = logger;
+        this.file = new File(dir, deviceName.replaceAll("[^A-Za-z0-9._-]", "_") + ".journal");
+        this.requestedCapacity = Math.max(1024, capacity);
+    }
+
+    public synchronized void open() throws IOException {
+        close();
+
+        if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Unable to create journal directory " + file.getParentFile());
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            int existingCapacity = 0;
+            if (raf.length() >= HEADER_SIZE) {
+                raf.seek(0);
+                if (raf.readInt() == MAGIC && raf.readInt() == VERSION) {
+                    existingCapacity = raf.readInt();
+                }
+            }
+
+            // Keep the existing layout until it has been drained; a new capacity only takes effect on an empty journal
+            boolean reuse = existingCapacity > 0 && raf.length() == HEADER_SIZE + (long) existingCapacity * RECORD_SIZE;
+            if (reuse) {
+                raf.seek(WRITE_OFFSET);
+                long write = raf.readLong(), ack = raf.readLong();
+                reuse = ack <= write && write - ack <= existingCapacity && (write > ack || existingCapacity == requestedCapacity);
+            }
+
+            capacity = reuse ? existingCapacity : requestedCapacity;
+            if (!reuse) {
+                raf.setLength(0);
+                raf.setLength(HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            }
+
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putLong(WRITE_OFFSET, 0);
+            buffer.putLong(ACK_OFFSET, 0);
+            buffer.force();
+        }
+
+        writePosition = buffer.getLong(WRITE_OFFSET);
+        ackPosition = buffer.getLong(ACK_OFFSET);
+        lastSequenceNumber = writePosition > 0 ? buffer.getInt(offset(writePosition - 1)) : null;
+
+        if (writePosition > ackPosition) {
+            logger.info("Event journal {} has {} events pending storage", file, writePosition - ackPosition);
+        }
+    }
+
+    public synchronized void close() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+    }
+
+    public synchronized int getPending() {
+        return (int) (writePosition - ackPosition);
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized Integer getLastSequenceNumber() {
+        return lastSequenceNumber;
+    }
+
+    public synchronized void append(List<EventParser.Event> events) throws IOException {
+        if (buffer == null) {
+            throw new IOException("Event journal " + file + " is not open");
+        }
+
+        if (events.size() > capacity - getPending()) {
+            throw new IOException("Event journal " + file + " is full (" + getPending() + " events pending storage)");
+        }
+
+        long position = writePosition;
+        for (EventParser.Event event : events) {
+            int offset = offset(position++);
+            buffer.putInt(offset, event.getSequenceNumber());
+            buffer.putInt(offset + 4, event.getInput());
+            buffer.put(offset + 8, (byte) event.getEventCode().ordinal());
+            buffer.put(offset + 9, (byte) event.getInputStatus().ordinal());
+            buffer.put(offset + 10, (byte) event.getDst().ordinal());
+            buffer.put(offset + 11, (byte) event.getTimeQuality().ordinal());
+            buffer.putLong(offset + 16, event.getInputCoincidentStatus());
+            buffer.putLong(offset + 24, event.getMsTime());
+        }
+
+        // Records must be on disk before the header points at them
+        buffer.force();
+        buffer.putLong(WRITE_OFFSET, position);
+        buffer.force();
+
+        writePosition = position;
+        if (!events.isEmpty()) {
+            lastSequenceNumber = events.get(events.size() - 1).getSequenceNumber();
+        }
+    }
+
+    public synchronized EventBatch peek(int maxEvents) {
+        EventBatch batch = new EventBatch();
+        if (buffer == null) {
+            return batch;
+        }
+
+        long end = Math.min(writePosition, ackPosition + maxEvents);
+        for (long position = ackPosition; position < end; position++) {
+            int offset = offset(position);
+            batch.add(new EventParser.Event(
+                    EVENT_CODES[buffer.get(offset + 8)],
+                    buffer.getInt(offset + 4),
+                    buffer.getInt(offset),
+                    buffer.getLong(offset + 16),
+                    INPUT_STATUSES[buffer.get(offset + 9)],
+                    DSTS[buffer.get(offset + 10)],
+                    TIME_QUALITIES[buffer.get(offset + 11)],
+                    buffer.getLong(offset + 24)));
+        }
+        return batch;
+    }
+
+    public synchronized void ack(int count) {
+        if (buffer == null) {
+            return;
+        }
+
+        ackPosition = Math.min(writePosition, ackPosition + count);
+        buffer.putLong(ACK_OFFSET, ackPosition);
+        buffer.force();
+    }
+
+    private int offset(long position) {
+        return HEADER_SIZE + (int) (position % capacity) * RECORD_SIZE;
+    }
+}
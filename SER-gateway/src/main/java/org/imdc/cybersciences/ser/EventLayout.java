@@ -0,0 +1,134 @@
+package org.imdc.cybersciences.ser;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * The column layout of an events table. Columns are always in the order of the EventTarget column names.
+ */
+public enum EventLayout {
+    /**
+     * Sequence number, timestamp, event code, event type, channel, status, coincident status, time quality, device. Status and time quality
+     * are stored as text.
+     */
+    Standard(new int[]{Types.INTEGER, Types.BIGINT, Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR}, 8),
+    /**
+     * Sequence number, timestamp, event code, channel, status, coincident status, time quality, device. Codes are stored as small integers
+     * described by the lookup table, and coincident status as a native 32-bit bitmap.
+     */
+    Compact(new int[]{Types.INTEGER, Types.BIGINT, Types.SMALLINT, Types.SMALLINT, Types.SMALLINT, Types.INTEGER, Types.SMALLINT, Types.VARCHAR}, 7);
+
+    public static final String CATEGORY_EVENT_CODE = "EventCode", CATEGORY_INPUT_STATUS = "InputStatus", CATEGORY_TIME_QUALITY = "TimeQuality";
+
+    private final int[] columnTypes;
+    // Natural key of an event: device, sequence number, timestamp
+    private final int[] keyColumns;
+
+    EventLayout(int[] columnTypes, int deviceColumn) {
+        this.columnTypes = columnTypes;
+        this.keyColumns = new int[]{deviceColumn, 0, 1};
+    }
+
+    public int getColumnCount() {
+        return columnTypes.length;
+    }
+
+    public int getColumnType(int column) {
+        return columnTypes[column];
+    }
+
+    public int[] getKeyColumns() {
+        return keyColumns;
+    }
+
+    public Object value(EventParser.Event event, String device, int column) {
+        if (this == Compact) {
+            switch (column) {
+                case 0:
+                    return event.getSequenceNumber();
+                case 1:
+                    return event.getMsTime();
+                case 2:
+                    return (short) event.getEventCode().ordinal();
+                case 3:
+                    return (short) event.getInput();
+                case 4:
+                    return (short) event.getInputStatus().ordinal();
+                case 5:
+                    return (int) event.getInputCoincidentStatus();
+                case 6:
+                    return (short) event.getTimeQuality().ordinal();
+                default:
+                    return device;
+            }
+        }
+
+        switch (column) {
+            case 0:
+                return event.getSequenceNumber();
+            case 1:
+                return event.getMsTime();
+            case 2:
+                return event.getEventCode().ordinal();
+            case 3:
+                return event.getEventCode().getDisplay();
+            case 4:
+                return event.getInput();
+            case 5:
+                return event.getInputStatus().toString();
+            case 6:
+                return Long.toString(event.getInputCoincidentStatus());
+            case 7:
+                return event.getTimeQuality().toString();
+            default:
+                return device;
+        }
+    }
+
+    public void bind(PreparedStatement ps, int offset, EventParser.Event event, String device) throws SQLException {
+        if (this == Compact) {
+            ps.setInt(offset + 1, event.getSequenceNumber());
+            ps.setLong(offset + 2, event.getMsTime());
+            ps.setShort(offset + 3, (short) event.getEventCode().ordinal());
+            ps.setShort(offset + 4, (short) event.getInput());
+            ps.setShort(offset + 5, (short) event.getInputStatus().ordinal());
+            // All 32 inputs fit the bitmap, so input 32 lands in the sign bit
+            ps.setInt(offset + 6, (int) event.getInputCoincidentStatus());
+            ps.setShort(offset + 7, (short) event.getTimeQuality().ordinal());
+            ps.setString(offset + 8, device);
+        } else {
+            event.bind(ps, offset);
+            ps.setString(offset + 9, device);
+        }
+    }
+
+    /**
+     * Returns the mask for the given inputs (1-32) in the coincident status bitmap, where input 1 is bit 0.
+     */
+    public static int coincidentMask(int... inputs) {
+        int mask = 0;
+        for (int input : inputs) {
+            if (input < 1 || input > 32) {
+                throw new IllegalArgumentException("Input " + input + " is out of range 1-32");
+            }
+            mask |= 1 << (input - 1);
+        }
+        return mask;
+    }
+
+    /**
+     * Builds a WHERE condition matching rows where any (or all) of the inputs in the mask were on when the event was recorded, using the
+     * bitwise AND the database understands. The column must already be quoted if needed.
+     */
+    public static String coincidentCondition(String productName, String column, int mask, boolean all) {
+        String product = productName == null ? "" : productName.toLowerCase();
+        String and;
+        if (product.contains("oracle") || product.contains("h2") || product.contains("hsql")) {
+            and = "BITAND(" + column + ", " + mask + ")";
+        } else {
+            and = "(" + column + " & " + mask + ")";
+        }
+        return all ? and + " = " + mask : and + " <> 0";
+    }
+}
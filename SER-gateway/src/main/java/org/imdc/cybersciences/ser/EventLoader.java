@@ -0,0 +1,450 @@
+package org.imdc.cybersciences.ser;
+
+import javax.sql.RowSetMetaData;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes rows of events into an events table over a plain JDBC connection, using the fastest path the database offers.
+ */
+public abstract class EventLoader {
+    public static EventLoader forConnection(Connection con) throws SQLException {
+        return forProduct(con.getMetaData().getDatabaseProductName());
+    }
+
+    public static EventLoader forProduct(String productName) {
+        String product = productName == null ? "" : productName.toLowerCase();
+        if (product.contains("postgres")) {
+            return new PostgresCopy();
+        } else if (product.contains("microsoft sql server")) {
+            return new SqlServerBulkCopy();
+        } else if (product.contains("mysql") || product.contains("mariadb")) {
+            return new MultiRowValues(1000, InsertSyntax.MySqlIgnore);
+        } else if (product.contains("sqlite")) {
+            // Older SQLite builds allow at most 999 parameters per statement
+            return new MultiRowValues(100, InsertSyntax.SqliteOrIgnore);
+        } else if (product.contains("h2")) {
+            return new MultiRowValues(200, InsertSyntax.H2Merge);
+        } else if (product.contains("oracle")) {
+            return new BatchInsert(InsertSyntax.OracleHint);
+        } else if (product.contains("hsql") || product.contains("derby")) {
+            return new MultiRowValues(200, InsertSyntax.Plain);
+        }
+        return new BatchInsert(InsertSyntax.Plain);
+    }
+
+    public static String keyIndexName(EventTarget target) {
+        return target.getTable() + "_UK";
+    }
+
+    public abstract String getName();
+
+    /**
+     * Returns the loader to use when this one turns out to be unavailable on the connection, or null if there is none.
+     */
+    public EventLoader getFallback() {
+        return null;
+    }
+
+    /**
+     * Loads the events within the connection's current transaction. Throws UnsupportedOperationException, before writing anything, when
+     * this path isn't available on the connection.
+     */
+    public abstract void load(Connection con, EventTarget target, List<EventParser.Event> events, List<String> devices) throws Exception;
+
+    /**
+     * Creates the unique index on the natural key that lets replays skip events already stored. Returns false if it already exists.
+     */
+    public boolean createKeyIndex(Connection con, EventTarget target) throws SQLException {
+        String name = keyIndexName(target);
+        if (hasIndex(con.getMetaData(), target.getTable(), name)) {
+            return false;
+        }
+
+        String[] columns = target.getColumns();
+        int[] keyColumns = target.getLayout().getKeyColumns();
+        StringBuilder sb = new StringBuilder();
+        sb.append("CREATE UNIQUE INDEX ").append(name).append(" ON ").append(target.getTable()).append(" (");
+        for (int i = 0; i < keyColumns.length; i++) {
+            sb.append(i > 0 ? ", " : "").append(target.quote(columns[keyColumns[i]]));
+        }
+        sb.append(")").append(keyIndexOptions());
+
+        try (Statement st = con.createStatement()) {
+            st.executeUpdate(sb.toString());
+        }
+        return true;
+    }
+
+    protected String keyIndexOptions() {
+        return "";
+    }
+
+    private static boolean hasIndex(DatabaseMetaData metaData, String table, String name) throws SQLException {
+        for (String candidate : new String[]{table, table.toUpperCase(), table.toLowerCase()}) {
+            try (ResultSet rs = metaData.getIndexInfo(null, null, candidate, true, true)) {
+                while (rs.next()) {
+                    if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    static boolean isDuplicateKey(SQLException ex) {
+        for (SQLException e = ex; e != null; e = e.getNextException()) {
+            if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs a load that may hit the natural key, falling back to row by row inserts that skip duplicates when it does.
+     */
+    static void loadSkippingDuplicates(Connection con, EventTarget target, List<EventParser.Event> events, List<String> devices, InsertSyntax syntax, Load load) throws Exception {
+        if (syntax.ignoresDuplicates()) {
+            load.run();
+            return;
+        }
+
+        Savepoint savepoint = con.setSavepoint();
+        try {
+            load.run();
+            return;
+        } catch (SQLException ex) {
+            if (!isDuplicateKey(ex)) {
+                throw ex;
+            }
+            con.rollback(savepoint);
+        }
+
+        try (PreparedStatement ps = con.prepareStatement(syntax.statement(target, 1))) {
+            for (int i = 0; i < events.size(); i++) {
+                target.getLayout().bind(ps, 0, events.get(i), devices.get(i));
+                Savepoint row = con.setSavepoint();
+                try {
+                    ps.executeUpdate();
+                } catch (SQLException ex) {
+                    if (!isDuplicateKey(ex)) {
+                        throw ex;
+                    }
+                    con.rollback(row);
+                }
+            }
+        }
+    }
+
+    private static Class<?> driverClass(Connection con, String name) {
+        ClassLoader[] loaders = {con.getClass().getClassLoader(), Thread.currentThread().getContextClassLoader(), EventLoader.class.getClassLoader()};
+        for (ClassLoader loader : loaders) {
+            if (loader == null) {
+                continue;
+            }
+            try {
+                return Class.forName(name, true, loader);
+            } catch (ClassNotFoundException ex) {
+                // Try the next loader
+            }
+        }
+        throw new UnsupportedOperationException(name + " is not available");
+    }
+
+    private static Object unwrap(Connection con, Class<?> type) {
+        try {
+            if (con.isWrapperFor(type)) {
+                return con.unwrap(type);
+            }
+        } catch (SQLException ex) {
+            // Fall through
+        }
+        throw new UnsupportedOperationException("Connection does not wrap " + type.getName());
+    }
+
+    private static Exception unwrapInvocation(InvocationTargetException ex) {
+        return ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+    }
+
+    @FunctionalInterface
+    interface Load {
+        void run() throws Exception;
+    }
+
+    /**
+     * How each dialect writes an INSERT that leaves rows already present on the natural key untouched.
+     */
+    public enum InsertSyntax {
+        Plain, PostgresOnConflict, MySqlIgnore, SqliteOrIgnore, H2Merge, OracleHint;
+
+        public boolean ignoresDuplicates() {
+            return this != Plain;
+        }
+
+        public String statement(EventTarget target, int rows) {
+            String table = target.getTable();
+            String columns = target.getColumnList();
+            int columnCount = target.getLayout().getColumnCount();
+            StringBuilder sb = new StringBuilder(columns.length() + table.length() * 3 + 96 + rows * (columnCount * 2 + 2));
+            switch (this) {
+                case MySqlIgnore:
+                    sb.append("INSERT IGNORE INTO ").append(table).append(" (").append(columns).append(")");
+                    break;
+                case SqliteOrIgnore:
+                    sb.append("INSERT OR IGNORE INTO ").append(table).append(" (").append(columns).append(")");
+                    break;
+                case H2Merge:
+                    String[] names = target.getColumns();
+                    int[] keyColumns = target.getLayout().getKeyColumns();
+                    sb.append("MERGE INTO ").append(table).append(" (").append(columns).append(") KEY (");
+                    for (int i = 0; i < keyColumns.length; i++) {
+                        sb.append(i > 0 ? ", " : "").append(target.quote(names[keyColumns[i]]));
+                    }
+                    sb.append(")");
+                    break;
+                case OracleHint:
+                    sb.append("INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(").append(table).append(", ").append(keyIndexName(target)).append(") */ INTO ").append(table).append(" (").append(columns).append(")");
+                    break;
+                default:
+                    sb.append("INSERT INTO ").append(table).append(" (").append(columns).append(")");
+                    break;
+            }
+
+            sb.append(" VALUES ");
+            for (int row = 0; row < rows; row++) {
+                if (row > 0) {
+                    sb.append(',');
+                }
+                sb.append('(');
+                for (int column = 0; column < columnCount; column++) {
+                    sb.append(column == 0 ? "?" : ",?");
+                }
+                sb.append(')');
+            }
+
+            if (this == PostgresOnConflict) {
+                sb.append(" ON CONFLICT DO NOTHING");
+            }
+            return sb.toString();
+        }
+    }
+
+    public static class BatchInsert extends EventLoader {
+        private final InsertSyntax syntax;
+        private final Map<EventTarget, String> statements = new ConcurrentHashMap<>();
+
+        public BatchInsert(InsertSyntax syntax) {
+            this.syntax = syntax;
+        }
+
+        @Override
+        public String getName() {
+            return "Batch INSERT (" + syntax + ")";
+        }
+
+        @Override
+        public void load(Connection con, EventTarget target, List<EventParser.Event> events, List<String> devices) throws Exception {
+            String sql = statements.computeIfAbsent(target, t -> syntax.statement(t, 1));
+            loadSkippingDuplicates(con, target, events, devices, syntax, () -> {
+                try (PreparedStatement ps = con.prepareStatement(sql)) {
+                    for (int i = 0; i < events.size(); i++) {
+                        target.getLayout().bind(ps, 0, events.get(i), devices.get(i));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            });
+        }
+    }
+
+    public static class MultiRowValues extends EventLoader {
+        private final int rowsPerStatement;
+        private final InsertSyntax syntax;
+        private final Map<EventTarget, String> statements = new ConcurrentHashMap<>();
+
+        public MultiRowValues(int rowsPerStatement, InsertSyntax syntax) {
+            this.rowsPerStatement = rowsPerStatement;
+            this.syntax = syntax;
+        }
+
+        @Override
+        public String getName() {
+            return "Multi-row VALUES (" + rowsPerStatement + " rows, " + syntax + ")";
+        }
+
+        @Override
+        public void load(Connection con, EventTarget target, List<EventParser.Event> events, List<String> devices) throws Exception {
+            loadSkippingDuplicates(con, target, events, devices, syntax, () -> {
+                for (int start = 0; start < events.size(); start += rowsPerStatement) {
+                    int count = Math.min(rowsPerStatement, events.size() - start);
+                    String sql = count == rowsPerStatement ? statements.computeIfAbsent(target, t -> syntax.statement(t, rowsPerStatement)) : syntax.statement(target, count);
+                    try (PreparedStatement ps = con.prepareStatement(sql)) {
+                        EventLayout layout = target.getLayout();
+                        for (int i = 0; i < count; i++) {
+                            layout.bind(ps, i * layout.getColumnCount(), events.get(start + i), devices.get(start + i));
+                        }
+                        ps.executeUpdate();
+                    }
+                }
+            });
+        }
+    }
+
+    public static class PostgresCopy extends EventLoader {
+        private static final String STAGING_TABLE = "ser_events_staging";
+
+        @Override
+        public String getName() {
+            return "PostgreSQL COPY";
+        }
+
+        @Override
+        public EventLoader getFallback() {
+            return new MultiRowValues(1000, InsertSyntax.PostgresOnConflict);
+        }
+
+        @Override
+        public void load(Connection con, EventTarget target, List<EventParser.Event> events, List<String> devices) throws Exception {
+            // The driver is only on the gateway's classpath, so the copy API is reached reflectively
+            Class<?> pgConnection = driverClass(con, "org.postgresql.PGConnection");
+            Object copyManager;
+            Method copyIn;
+            try {
+                copyManager = pgConnection.getMethod("getCopyAPI").invoke(unwrap(con, pgConnection));
+                copyIn = copyManager.getClass().getMethod("copyIn", String.class, Reader.class);
+            } catch (ReflectiveOperationException ex) {
+                throw new UnsupportedOperationException("PostgreSQL copy API is not available", ex);
+            }
+
+            // COPY can't skip conflicting rows, so events are staged in a transaction-scoped table and merged with ON CONFLICT DO NOTHING
+            String columns = target.getColumnList();
+            try (Statement st = con.createStatement()) {
+                st.execute("CREATE TEMP TABLE " + STAGING_TABLE + " ON COMMIT DROP AS SELECT " + columns + " FROM " + target.getTable() + " WITH NO DATA");
+            }
+
+            EventLayout layout = target.getLayout();
+            StringBuilder csv = new StringBuilder(events.size() * 96);
+            for (int i = 0; i < events.size(); i++) {
+                for (int column = 0; column < layout.getColumnCount(); column++) {
+                    if (column > 0) {
+                        csv.append(',');
+                    }
+
+                    Object value = layout.value(events.get(i), devices.get(i), column);
+                    if (value instanceof String) {
+                        csv.append('"').append(((String) value).replace("\"", "\"\"")).append('"');
+                    } else if (value != null) {
+                        csv.append(value);
+                    }
+                }
+                csv.append('\n');
+            }
+
+            String sql = "COPY " + STAGING_TABLE + " (" + columns + ") FROM STDIN WITH (FORMAT csv)";
+            try {
+                copyIn.invoke(copyManager, sql, new StringReader(csv.toString()));
+            } catch (InvocationTargetException ex) {
+                throw unwrapInvocation(ex);
+            }
+
+            try (Statement st = con.createStatement()) {
+                st.executeUpdate("INSERT INTO " + target.getTable() + " (" + columns + ") SELECT " + columns + " FROM " + STAGING_TABLE + " ON CONFLICT DO NOTHING");
+                st.execute("DROP TABLE " + STAGING_TABLE);
+            }
+        }
+    }
+
+    public static class SqlServerBulkCopy extends EventLoader {
+        @Override
+        public String getName() {
+            return "SQL Server bulk copy";
+        }
+
+        @Override
+        public EventLoader getFallback() {
+            // Keeps each statement under the 2100 parameter limit
+            return new MultiRowValues(200, InsertSyntax.Plain);
+        }
+
+        @Override
+        protected String keyIndexOptions() {
+            // Lets bulk copy and plain inserts drop rows already stored instead of failing the whole batch
+            return " WITH (IGNORE_DUP_KEY = ON)";
+        }
+
+        @Override
+        public void load(Connection con, EventTarget target, List<EventParser.Event> events, List<String> devices) throws Exception {
+            Class<?> serverConnection = driverClass(con, "com.microsoft.sqlserver.jdbc.SQLServerConnection");
+            Class<?> bulkCopyClass = driverClass(con, "com.microsoft.sqlserver.jdbc.SQLServerBulkCopy");
+            Object bulkCopy;
+            Method addColumnMapping, writeToServer;
+            try {
+                bulkCopy = bulkCopyClass.getConstructor(Connection.class).newInstance(unwrap(con, serverConnection));
+                bulkCopyClass.getMethod("setDestinationTableName", String.class).invoke(bulkCopy, target.getTable());
+                addColumnMapping = bulkCopyClass.getMethod("addColumnMapping", int.class, String.class);
+                writeToServer = bulkCopyClass.getMethod("writeToServer", java.sql.ResultSet.class);
+            } catch (InvocationTargetException ex) {
+                throw unwrapInvocation(ex);
+            } catch (ReflectiveOperationException ex) {
+                throw new UnsupportedOperationException("SQL Server bulk copy is not available", ex);
+            }
+
+            EventLayout layout = target.getLayout();
+            int columnCount = layout.getColumnCount();
+            RowSetMetaData metaData = new RowSetMetaDataImpl();
+            metaData.setColumnCount(columnCount);
+            String[] columns = target.getColumns();
+            for (int column = 0; column < columnCount; column++) {
+                metaData.setColumnName(column + 1, columns[column]);
+                metaData.setColumnType(column + 1, layout.getColumnType(column));
+                if (layout.getColumnType(column) == Types.VARCHAR) {
+                    metaData.setPrecision(column + 1, 255);
+                }
+            }
+
+            try (CachedRowSet rows = RowSetProvider.newFactory().createCachedRowSet()) {
+                rows.setMetaData(metaData);
+                rows.moveToInsertRow();
+                for (int i = 0; i < events.size(); i++) {
+                    for (int column = 0; column < columnCount; column++) {
+                        rows.updateObject(column + 1, layout.value(events.get(i), devices.get(i), column));
+                    }
+                    rows.insertRow();
+                }
+                rows.moveToCurrentRow();
+                rows.beforeFirst();
+
+                for (int column = 0; column < columnCount; column++) {
+                    addColumnMapping.invoke(bulkCopy, column + 1, columns[column]);
+                }
+                writeToServer.invoke(bulkCopy, rows);
+            } catch (InvocationTargetException ex) {
+                throw unwrapInvocation(ex);
+            } finally {
+                try {
+                    bulkCopyClass.getMethod("close").invoke(bulkCopy);
+                } catch (ReflectiveOperationException ex) {
+                    // Nothing to release
+                }
+            }
+        }
+    }
+}
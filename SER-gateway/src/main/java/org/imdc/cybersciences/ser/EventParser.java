@@ -1,51 +1,91 @@
 package org.imdc.cybersciences.ser;
 
-import com.inductiveautomation.ignition.gateway.datasource.SRConnection;
-import com.inductiveautomation.ignition.gateway.history.DatasourceData;
-import com.inductiveautomation.ignition.gateway.history.HistoryFlavor;
-
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 public class EventParser {
     static SimpleDateFormat DF = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
 
-    public static Event parse(String parentLog, String insertQuery, String event) {
-        event = event.replace("-", "");
+    private static final int SECONDS_OFFSET = 441792000;
+    private static final int RECORD_NIBBLES = 32;
+
+    private static final EventCode[] EVENT_CODES = EventCode.values();
+    private static final InputStatus[] INPUT_STATUSES = InputStatus.values();
+    private static final DST[] DSTS = DST.values();
+    private static final TimeQuality[] TIME_QUALITIES = TimeQuality.values();
+
+    public static Event parse(CharSequence event) {
+        // The record is 16 bytes of hex, optionally split with dashes. Pack the first 8 bytes into high and the last 8 into low.
+        long high = 0, low = 0;
+        int nibbles = 0;
+        for (int i = 0; i < event.length() && nibbles < RECORD_NIBBLES; i++) {
+            char c = event.charAt(i);
+            if (c == '-') {
+                continue;
+            }
+
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid event record '" + event + "'");
+            }
+
+            if (nibbles < 16) {
+                high = (high << 4) | digit;
+            } else {
+                low = (low << 4) | digit;
+            }
+            nibbles++;
+        }
+
+        if (nibbles < RECORD_NIBBLES) {
+            throw new IllegalArgumentException("Event record '" + event + "' is shorter than 16 bytes");
+        }
+
+        int eventDescPart1 = word(high, 0);
+        int eventDescPart2 = word(high, 1);
 
-        Long eventDescPart1 = Long.parseLong(event.substring(0, 4), 16);
-        Long eventDescPart2 = Long.parseLong(event.substring(4, 8), 16);
+        EventCode eventCode = EVENT_CODES[eventDescPart1 & 0x1F];
+        int inputs = (eventDescPart1 >> 5) & 0x1F;
+        InputStatus inputStatus = INPUT_STATUSES[(eventDescPart1 >> 10) & 0x1];
+        DST dst = DSTS[(eventDescPart1 >> 11) & 0x1];
 
-        EventCode eventCode = EventCode.values()[(int) (eventDescPart1 & 0x1F)];
-        Integer inputs = (int) (eventDescPart1 >> 5) & 0x1F;
-        InputStatus inputStatus = InputStatus.values()[(int) (eventDescPart1 >> 10) & 0x1];
-        DST dst = DST.values()[(int) (eventDescPart1 >> 11) & 0x1];
+        TimeQuality timeQuality = TIME_QUALITIES[(eventDescPart2 >> 14) & 0x3];
 
-        TimeQuality timeQuality = TimeQuality.values()[(int) (eventDescPart2 >> 14) & 0x3];
+        int ms = eventDescPart2 & 0x3FF;
+        int seconds = SECONDS_OFFSET + positiveInt(word(high, 3), word(high, 2), event);
+        long milliseconds = seconds * 1000L + ms;
 
-        Integer ms = (int) (eventDescPart2 & 0x3FF);
-        Integer seconds = 441792000 + Integer.parseInt(event.substring(12, 16) + event.substring(8, 12), 16);
-        Long milliseconds = seconds * 1000L + ms;
+        int sequenceNumber = positiveInt(word(low, 1), word(low, 0), event);
+        long inputCoincidentStatus = ((long) word(low, 3) << 16) | word(low, 2);
 
-        Integer sequenceNumber = Integer.parseInt(event.substring(20, 24) + event.substring(16, 20), 16);
-        Long inputCoincidentStatus = Long.parseLong(event.substring(28, 32) + event.substring(24, 28), 16);
+        return new Event(eventCode, inputs, sequenceNumber, inputCoincidentStatus, inputStatus, dst, timeQuality, milliseconds);
+    }
 
-        return new Event(parentLog, insertQuery, eventCode, inputs, sequenceNumber, inputCoincidentStatus, inputStatus, dst, timeQuality, milliseconds);
+    private static int word(long bytes, int index) {
+        return (int) (bytes >>> (48 - index * 16)) & 0xFFFF;
+    }
+
+    private static int positiveInt(int highWord, int lowWord, CharSequence event) {
+        int value = (highWord << 16) | lowWord;
+        if (value < 0) {
+            // Same range as the Integer.parseInt() decoding this replaced.
+            throw new NumberFormatException("Event record '" + event + "' has a field out of integer range");
+        }
+        return value;
     }
 
-    public static class Event implements DatasourceData {
-        private String parentLog, insertQuery;
+    public static class Event {
         private EventCode eventCode;
-        private Integer input, sequenceNumber;
-        private Long inputCoincidentStatus;
+        private int input, sequenceNumber;
+        private long inputCoincidentStatus;
         private InputStatus inputStatus;
         private DST dst;
         private TimeQuality timeQuality;
-        private Long msTime;
+        private long msTime;
 
-        public Event(String parentLog, String insertQuery, EventCode eventCode, Integer input, Integer sequenceNumber, Long inputCoincidentStatus, InputStatus inputStatus, DST dst, TimeQuality timeQuality, Long msTime) {
-            this.parentLog = parentLog;
-            this.insertQuery = insertQuery;
+        public Event(EventCode eventCode, int input, int sequenceNumber, long inputCoincidentStatus, InputStatus inputStatus, DST dst, TimeQuality timeQuality, long msTime) {
             this.eventCode = eventCode;
             this.input = input + 1;
             this.sequenceNumber = sequenceNumber;
@@ -60,15 +100,15 @@ public class EventParser {
             return eventCode;
         }
 
-        public Integer getInput() {
+        public int getInput() {
             return input;
         }
 
-        public Integer getSequenceNumber() {
+        public int getSequenceNumber() {
             return sequenceNumber;
         }
 
-        public Long getInputCoincidentStatus() {
+        public long getInputCoincidentStatus() {
             return inputCoincidentStatus;
         }
 
@@ -84,7 +124,7 @@ public class EventParser {
             return timeQuality;
         }
 
-        public Long getMsTime() {
+        public long getMsTime() {
             return msTime;
         }
 
@@ -92,15 +132,15 @@ public class EventParser {
             return new Date(getMsTime());
         }
 
-        public void writeTags(TagManager tagManager, String tagPrefix) {
-            tagManager.tagUpdate(String.format("%s/LastEvent/SequenceNumber", tagPrefix), getSequenceNumber());
-            tagManager.tagUpdate(String.format("%s/LastEvent/EventCode", tagPrefix), getEventCode().getDisplay());
-            tagManager.tagUpdate(String.format("%s/LastEvent/Channel", tagPrefix), getInput());
-            tagManager.tagUpdate(String.format("%s/LastEvent/Status", tagPrefix), getInputStatus().toString());
-            tagManager.tagUpdate(String.format("%s/LastEvent/CoincidentStatus", tagPrefix), getInputCoincidentStatus().toString());
-            tagManager.tagUpdate(String.format("%s/LastEvent/Timestamp", tagPrefix), getMsTime());
-            tagManager.tagUpdate(String.format("%s/LastEvent/DST", tagPrefix), getDst().toString());
-            tagManager.tagUpdate(String.format("%s/LastEvent/TimeQuality", tagPrefix), getTimeQuality().toString());
+        public void writeTags(TagWriteBatch batch, EventTags tags) {
+            batch.update(tags.sequenceNumber, getSequenceNumber());
+            batch.update(tags.eventCode, getEventCode().getDisplay());
+            batch.update(tags.channel, getInput());
+            batch.update(tags.status, getInputStatus().toString());
+            batch.update(tags.coincidentStatus, Long.toString(getInputCoincidentStatus()));
+            batch.update(tags.timestamp, getMsTime());
+            batch.update(tags.dst, getDst().toString());
+            batch.update(tags.timeQuality, getTimeQuality().toString());
         }
 
         @Override
@@ -117,41 +157,30 @@ public class EventParser {
                     '}';
         }
 
-        @Override
-        public void storeToConnection(SRConnection conn) throws Exception {
-            if (insertQuery != null) {
-                conn.runPrepUpdate(
-                        insertQuery,
-                        getSequenceNumber(),
-                        getMsTime(),
-                        getEventCode().ordinal(),
-                        getEventCode().getDisplay(),
-                        getInput(),
-                        getInputStatus().toString(),
-                        getInputCoincidentStatus().toString(),
-                        getTimeQuality().toString()
-                );
-            }
-        }
-
-        @Override
-        public HistoryFlavor getFlavor() {
-            return FLAVOR;
-        }
-
-        @Override
-        public String getSignature() {
-            return "SER Event Data";
-        }
-
-        @Override
-        public int getDataCount() {
-            return 1;
+        public void bind(PreparedStatement ps, int offset) throws SQLException {
+            ps.setInt(offset + 1, getSequenceNumber());
+            ps.setLong(offset + 2, getMsTime());
+            ps.setInt(offset + 3, getEventCode().ordinal());
+            ps.setObject(offset + 4, getEventCode().getDisplay());
+            ps.setInt(offset + 5, getInput());
+            ps.setObject(offset + 6, getInputStatus().toString());
+            ps.setObject(offset + 7, Long.toString(getInputCoincidentStatus()));
+            ps.setObject(offset + 8, getTimeQuality().toString());
         }
+    }
 
-        @Override
-        public String getLoggerName() {
-            return parentLog + ".StoreAndForward";
+    public static class EventTags {
+        private final TagHandle sequenceNumber, eventCode, channel, status, coincidentStatus, timestamp, dst, timeQuality;
+
+        public EventTags(TagManager tagManager, String tagPrefix) {
+            this.sequenceNumber = tagManager.resolve(String.format("%s/LastEvent/SequenceNumber", tagPrefix));
+            this.eventCode = tagManager.resolve(String.format("%s/LastEvent/EventCode", tagPrefix));
+            this.channel = tagManager.resolve(String.format("%s/LastEvent/Channel", tagPrefix));
+            this.status = tagManager.resolve(String.format("%s/LastEvent/Status", tagPrefix));
+            this.coincidentStatus = tagManager.resolve(String.format("%s/LastEvent/CoincidentStatus", tagPrefix));
+            this.timestamp = tagManager.resolve(String.format("%s/LastEvent/Timestamp", tagPrefix));
+            this.dst = tagManager.resolve(String.format("%s/LastEvent/DST", tagPrefix));
+            this.timeQuality = tagManager.resolve(String.format("%s/LastEvent/TimeQuality", tagPrefix));
         }
     }
 
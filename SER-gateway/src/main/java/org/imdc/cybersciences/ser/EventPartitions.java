@@ -0,0 +1,86 @@
+package org.imdc.cybersciences.ser;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class EventPartitions {
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern MONTH_SUFFIX = Pattern.compile("(\\d{4})(\\d{2})");
+    private static final Pattern WEEK_SUFFIX = Pattern.compile("(\\d{4})[Ww](\\d{2})");
+
+    private final String baseTable;
+    private final Mode mode;
+
+    public EventPartitions(String baseTable, Mode mode) {
+        this.baseTable = baseTable;
+        this.mode = mode == null ? Mode.Single : mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isPartitioned() {
+        return mode != Mode.Single;
+    }
+
+    public String tableFor(long msTime) {
+        ZonedDateTime time = Instant.ofEpochMilli(msTime).atZone(ZoneOffset.UTC);
+        switch (mode) {
+            case Monthly:
+                return baseTable + "_" + MONTH_FORMAT.format(time);
+            case Weekly:
+                return String.format("%s_%04dW%02d", baseTable, time.get(IsoFields.WEEK_BASED_YEAR), time.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            default:
+                return baseTable;
+        }
+    }
+
+    /**
+     * Returns the exclusive end of the partition in epoch milliseconds, or -1 if the table isn't one of this table's partitions.
+     */
+    public long endOf(String table) {
+        if (!isPartitioned() || table.length() <= baseTable.length() + 1 || !table.regionMatches(true, 0, baseTable + "_", 0, baseTable.length() + 1)) {
+            return -1;
+        }
+
+        String suffix = table.substring(baseTable.length() + 1);
+        try {
+            if (mode == Mode.Monthly) {
+                Matcher m = MONTH_SUFFIX.matcher(suffix);
+                if (m.matches()) {
+                    YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+                    return month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+                }
+            } else {
+                Matcher m = WEEK_SUFFIX.matcher(suffix);
+                if (m.matches()) {
+                    // Setting the week is lenient and rolls week 53 of a 52 week year into the next year, so check it against the year first
+                    LocalDate yearStart = LocalDate.of(Integer.parseInt(m.group(1)), 1, 4);
+                    long week = IsoFields.WEEK_OF_WEEK_BASED_YEAR.rangeRefinedBy(yearStart).checkValidValue(Integer.parseInt(m.group(2)), IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+                    LocalDate start = yearStart
+                            .with(IsoFields.WEEK_OF_WEEK_BASED_YEAR, week)
+                            .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                    return start.plusWeeks(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+                }
+            }
+        } catch (DateTimeException ex) {
+            // Name looks like a partition but isn't a real month or week, e.g. SER_EVENTS_202613
+        }
+        return -1;
+    }
+
+    public enum Mode {
+        Single, Monthly, Weekly
+    }
+}
@@ -0,0 +1,69 @@
+package org.imdc.cybersciences.ser;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+public class EventTarget {
+    private final String table, quote;
+    private final EventLayout layout;
+    private final String[] columns;
+
+    public EventTarget(String table, String quote, EventLayout layout, String... columns) {
+        if (columns.length != layout.getColumnCount()) {
+            throw new IllegalArgumentException(layout + " layout needs " + layout.getColumnCount() + " columns, got " + columns.length);
+        }
+        this.table = table;
+        this.quote = quote == null ? "" : quote;
+        this.layout = layout;
+        this.columns = columns;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public EventLayout getLayout() {
+        return layout;
+    }
+
+    public String[] getColumns() {
+        return columns;
+    }
+
+    public String quote(String column) {
+        return quote + column + quote;
+    }
+
+    public String getColumnList() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(quote).append(columns[i]).append(quote);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EventTarget that = (EventTarget) o;
+        return table.equals(that.table) && quote.equals(that.quote) && layout == that.layout && Arrays.equals(columns, that.columns);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(table, quote, layout) + Arrays.hashCode(columns);
+    }
+
+    @Override
+    public String toString() {
+        return table;
+    }
+}
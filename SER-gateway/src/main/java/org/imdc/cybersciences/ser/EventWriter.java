@@ -0,0 +1,191 @@
+package org.imdc.cybersciences.ser;
+
+import com.inductiveautomation.ignition.gateway.datasource.SRConnection;
+import com.inductiveautomation.ignition.gateway.model.GatewayContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class EventWriter {
+    private static final int MAX_ROWS = 5000;
+    private static final long LINGER = 20;
+
+    private final Logger logger;
+    private final GatewayContext context;
+    private final String datasource;
+    private final LinkedBlockingQueue<Write> queue;
+    private volatile Thread thread;
+    private EventLoader loader;
+
+    public EventWriter(GatewayContext context, String datasource) {
+        this.logger = LoggerFactory.getLogger("SER.EventWriter." + datasource);
+        this.context = context;
+        this.datasource = datasource;
+        this.queue = new LinkedBlockingQueue<>();
+    }
+
+    public synchronized void startup() {
+        logger.debug("Starting up");
+
+        thread = new Thread(this::run, "SER-Writer-" + datasource);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void shutdown() {
+        logger.debug("Shutting down");
+
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            t.interrupt();
+        }
+
+        Write write;
+        while ((write = queue.poll()) != null) {
+            write.future.completeExceptionally(new IllegalStateException("Event writer for '" + datasource + "' is shut down"));
+        }
+    }
+
+    public synchronized CompletableFuture<Void> write(EventTarget target, String device, List<EventParser.Event> events) {
+        Write write = new Write(target, device, events);
+        if (thread == null) {
+            write.future.completeExceptionally(new IllegalStateException("Event writer for '" + datasource + "' is not running"));
+        } else if (events.isEmpty()) {
+            write.future.complete(null);
+        } else {
+            queue.add(write);
+        }
+        return write.future;
+    }
+
+    private void run() {
+        while (thread == Thread.currentThread()) {
+            List<Write> writes = new ArrayList<>();
+            try {
+                Write first = queue.take();
+                writes.add(first);
+
+                // Linger briefly so devices draining at the same time share statements
+                int rows = first.events.size();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER);
+                while (rows < MAX_ROWS) {
+                    Write next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    writes.add(next);
+                    rows += next.events.size();
+                }
+            } catch (InterruptedException ex) {
+                for (Write write : writes) {
+                    write.future.completeExceptionally(ex);
+                }
+                return;
+            }
+
+            Map<EventTarget, List<Write>> targets = new LinkedHashMap<>();
+            for (Write write : writes) {
+                targets.computeIfAbsent(write.target, k -> new ArrayList<>()).add(write);
+            }
+
+            for (Map.Entry<EventTarget, List<Write>> target : targets.entrySet()) {
+                try {
+                    store(target.getKey(), target.getValue());
+                    for (Write write : target.getValue()) {
+                        write.future.complete(null);
+                    }
+                } catch (Throwable ex) {
+                    if (target.getValue().size() == 1) {
+                        target.getValue().get(0).future.completeExceptionally(ex);
+                        continue;
+                    }
+
+                    // The shared transaction rolled back, so each batch is retried on its own and only the ones that fail again fail
+                    logger.debug("Error writing {} event batches together, retrying each separately", target.getValue().size(), ex);
+                    for (Write write : target.getValue()) {
+                        try {
+                            store(target.getKey(), Collections.singletonList(write));
+                            write.future.complete(null);
+                        } catch (Throwable writeEx) {
+                            write.future.completeExceptionally(writeEx);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void store(EventTarget target, List<Write> writes) throws Exception {
+        List<EventParser.Event> events = new ArrayList<>();
+        List<String> devices = new ArrayList<>();
+        for (Write write : writes) {
+            for (EventParser.Event event : write.events) {
+                events.add(event);
+                devices.add(write.device);
+            }
+        }
+
+        try (SRConnection con = context.getDatasourceManager().getConnection(datasource)) {
+            if (loader == null) {
+                loader = EventLoader.forConnection(con);
+                logger.debug("Loading events with {}", loader.getName());
+            }
+
+            boolean autoCommit = con.getAutoCommit();
+            try {
+                if (autoCommit) {
+                    con.setAutoCommit(false);
+                }
+
+                try {
+                    loader.load(con, target, events, devices);
+                } catch (UnsupportedOperationException ex) {
+                    EventLoader fallback = loader.getFallback();
+                    if (fallback == null) {
+                        throw ex;
+                    }
+
+                    logger.info("{} is unavailable ({}), loading events with {} instead", loader.getName(), ex.getMessage(), fallback.getName());
+                    loader = fallback;
+                    loader.load(con, target, events, devices);
+                }
+
+                if (autoCommit) {
+                    con.commit();
+                }
+            } catch (Exception ex) {
+                if (autoCommit) {
+                    con.rollback();
+                }
+                throw ex;
+            } finally {
+                if (autoCommit) {
+                    con.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    private static class Write {
+        private final EventTarget target;
+        private final String device;
+        private final List<EventParser.Event> events;
+        private final CompletableFuture<Void> future;
+
+        Write(EventTarget target, String device, List<EventParser.Event> events) {
+            this.target = target;
+            this.device = device;
+            this.events = events;
+            this.future = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package org.imdc.cybersciences.ser;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public class JsonStreamReader {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final byte[] buffer;
+    private final StringBuilder text;
+    private InputStream in;
+    private int pos, limit;
+    private long bytesRead;
+
+    public JsonStreamReader() {
+        this.buffer = new byte[BUFFER_SIZE];
+        this.text = new StringBuilder(64);
+    }
+
+    public JsonStreamReader reset(InputStream in) {
+        this.in = in;
+        this.pos = 0;
+        this.limit = 0;
+        this.bytesRead = 0;
+        this.text.setLength(0);
+        return this;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public void beginObject() throws IOException {
+        expect('{');
+    }
+
+    public void endObject() throws IOException {
+        skipComma();
+        expect('}');
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+    }
+
+    public void endArray() throws IOException {
+        skipComma();
+        expect(']');
+    }
+
+    public boolean hasNext() throws IOException {
+        skipComma();
+        int c = peek();
+        return c != '}' && c != ']' && c != -1;
+    }
+
+    public CharSequence nextName() throws IOException {
+        readString();
+        expect(':');
+        return text;
+    }
+
+    public CharSequence nextString() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            readString();
+            return text;
+        }
+
+        readLiteral();
+        if (equals(text, "null")) {
+            return null;
+        }
+        return text;
+    }
+
+    public long nextLong() throws IOException {
+        int c = peek();
+        boolean quoted = c == '"';
+        if (quoted) {
+            pos++;
+        }
+
+        c = read();
+        boolean negative = c == '-';
+        if (negative || c == '+') {
+            c = read();
+        }
+
+        if (c < '0' || c > '9') {
+            throw syntaxError("Expected number");
+        }
+
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            c = read();
+        }
+
+        // Fractions and exponents are truncated, matching JSONObject.getLong()
+        while (c == '.' || c == 'e' || c == 'E' || c == '-' || c == '+' || (c >= '0' && c <= '9')) {
+            c = read();
+        }
+
+        if (quoted) {
+            if (c != '"') {
+                throw syntaxError("Expected '\"'");
+            }
+        } else if (c != -1) {
+            pos--;
+        }
+
+        return negative ? -value : value;
+    }
+
+    public int nextInt() throws IOException {
+        return (int) nextLong();
+    }
+
+    public boolean nextBoolean() throws IOException {
+        readLiteral();
+        if (equals(text, "true")) {
+            return true;
+        } else if (equals(text, "false")) {
+            return false;
+        }
+        throw syntaxError("Expected boolean");
+    }
+
+    public void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            boolean inString = false;
+            do {
+                c = read();
+                if (c == -1) {
+                    throw syntaxError("Unterminated value");
+                }
+
+                if (inString) {
+                    if (c == '\\') {
+                        read();
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else {
+            readLiteral();
+        }
+    }
+
+    public static boolean equals(CharSequence a, String b) {
+        if (a == null || a.length() != b.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < b.length(); i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipComma() throws IOException {
+        if (peek() == ',') {
+            pos++;
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peek();
+        if (c != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+        pos++;
+    }
+
+    private void readLiteral() throws IOException {
+        text.setLength(0);
+        peek();
+        int c;
+        while ((c = read()) != -1) {
+            if (c == ',' || c == '}' || c == ']' || c <= ' ') {
+                pos--;
+                break;
+            }
+            text.append((char) c);
+        }
+    }
+
+    private void readString() throws IOException {
+        expect('"');
+        text.setLength(0);
+
+        int c;
+        while ((c = read()) != '"') {
+            if (c == -1) {
+                throw syntaxError("Unterminated string");
+            } else if (c == '\\') {
+                readEscape();
+            } else if (c < 0x80) {
+                text.append((char) c);
+            } else {
+                readUtf8(c);
+            }
+        }
+    }
+
+    private void readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'b':
+                text.append('\b');
+                break;
+            case 'f':
+                text.append('\f');
+                break;
+            case 'n':
+                text.append('\n');
+                break;
+            case 'r':
+                text.append('\r');
+                break;
+            case 't':
+                text.append('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Invalid unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                text.append((char) value);
+                break;
+            case -1:
+                throw syntaxError("Unterminated escape");
+            default:
+                text.append((char) c);
+        }
+    }
+
+    private void readUtf8(int c) throws IOException {
+        int codePoint, remaining;
+        if ((c & 0xE0) == 0xC0) {
+            codePoint = c & 0x1F;
+            remaining = 1;
+        } else if ((c & 0xF0) == 0xE0) {
+            codePoint = c & 0x0F;
+            remaining = 2;
+        } else if ((c & 0xF8) == 0xF0) {
+            codePoint = c & 0x07;
+            remaining = 3;
+        } else {
+            text.append('\uFFFD');
+            return;
+        }
+
+        for (int i = 0; i < remaining; i++) {
+            int next = read();
+            if ((next & 0xC0) != 0x80) {
+                text.append('\uFFFD');
+                if (next != -1) {
+                    pos--;
+                }
+                return;
+            }
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+
+        text.appendCodePoint(codePoint);
+    }
+
+    private int peek() throws IOException {
+        while (true) {
+            if (pos >= limit && !fill()) {
+                return -1;
+            }
+
+            int c = buffer[pos] & 0xFF;
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                pos++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (in == null) {
+            return false;
+        }
+
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+
+        bytesRead += n;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at byte " + (bytesRead - limit + pos));
+    }
+}
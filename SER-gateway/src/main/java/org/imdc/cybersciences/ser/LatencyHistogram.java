@@ -0,0 +1,131 @@
+package org.imdc.cybersciences.ser;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+    // Log-linear buckets over microseconds: 16 linear sub-buckets per power of two keeps the error under ~6%
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray[] slots;
+    private volatile int current;
+
+    public LatencyHistogram(int windowSlots) {
+        this.slots = new AtomicLongArray[Math.max(1, windowSlots)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        slots[current].incrementAndGet(bucket(Math.max(0, nanos / 1000)));
+    }
+
+    public void rotate() {
+        int next = (current + 1) % slots.length;
+        AtomicLongArray slot = slots[next];
+        for (int i = 0; i < BUCKETS; i++) {
+            slot.set(i, 0);
+        }
+        current = next;
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (AtomicLongArray slot : slots) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = slot.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+
+        return new Snapshot(total, percentile(counts, total, 0.50), percentile(counts, total, 0.95), percentile(counts, total, 0.99), max(counts));
+    }
+
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS + 1;
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+
+        int subBucket = (int) (micros >>> (exponent - 1)) & (SUB_BUCKETS - 1);
+        return exponent * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundMicros(int bucket) {
+        int exponent = bucket / SUB_BUCKETS;
+        int subBucket = bucket % SUB_BUCKETS;
+        if (exponent == 0) {
+            return subBucket;
+        }
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - 1)) - 1;
+    }
+
+    private static double percentile(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return upperBoundMicros(i) / 1000.0;
+            }
+        }
+        return upperBoundMicros(counts.length - 1) / 1000.0;
+    }
+
+    private static double max(long[] counts) {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return upperBoundMicros(i) / 1000.0;
+            }
+        }
+        return 0;
+    }
+
+    public static class Snapshot {
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0);
+
+        private final long count;
+        private final double p50, p95, p99, max;
+
+        Snapshot(long count, double p50, double p95, double p99, double max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP95() {
+            return p95;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getMax() {
+            return max;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package org.imdc.cybersciences.ser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+public class PollScheduler {
+    private static final Logger logger = LoggerFactory.getLogger("SER.Poll.Scheduler");
+    private static final int WORKER_THREADS = 4;
+    private static final double GOLDEN_RATIO_CONJUGATE = 0.6180339887498949;
+
+    private final AtomicInteger registrations;
+    private ScheduledExecutorService timer;
+    private ExecutorService workers;
+
+    public PollScheduler() {
+        this.registrations = new AtomicInteger();
+    }
+
+    public void startup() {
+        logger.debug("Starting up");
+
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SER-PollTimer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // Due cycles queue FIFO for a fixed set of workers; with one cycle per task in flight this is round robin across devices
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(WORKER_THREADS, r -> {
+            Thread t = new Thread(r, "SER-Poll-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void shutdown() {
+        logger.debug("Shutting down");
+
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    public Executor getExecutor() {
+        return workers;
+    }
+
+    /**
+     * Returns an executor that runs its tasks one at a time on the shared workers. Each queued task goes to the back of the workers'
+     * queue, so a source with slow blocking work holds at most one worker and other sources still get their turn.
+     */
+    public Executor newSerialExecutor() {
+        return new SerialExecutor();
+    }
+
+    public PollTask schedule(String name, Supplier<CompletableFuture<?>> cycle, LongSupplier period) {
+        return schedule(name, null, cycle, period, Long.MAX_VALUE);
+    }
+
+    public PollTask schedule(String name, Supplier<CompletableFuture<?>> cycle, LongSupplier period, long maxInitialDelay) {
+        return schedule(name, null, cycle, period, maxInitialDelay);
+    }
+
+    public PollTask schedule(String name, Executor executor, Supplier<CompletableFuture<?>> cycle, LongSupplier period) {
+        return schedule(name, executor, cycle, period, Long.MAX_VALUE);
+    }
+
+    public PollTask schedule(String name, Executor executor, Supplier<CompletableFuture<?>> cycle, LongSupplier period, long maxInitialDelay) {
+        PollTask task = new PollTask(name, executor, cycle, period);
+
+        // Spread first runs across the period using the golden ratio sequence so restarts don't fire every device in lockstep
+        double phase = (registrations.getAndIncrement() * GOLDEN_RATIO_CONJUGATE) % 1.0;
+        long initialDelay = (long) (Math.min(task.period(), maxInitialDelay) * phase);
+        task.nextDue = System.currentTimeMillis() + initialDelay;
+        task.schedule(initialDelay);
+        return task;
+    }
+
+    public enum OverrunPolicy {
+        Skip, Coalesce, CatchUp
+    }
+
+    private class SerialExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            tasks.add(() -> {
+                try {
+                    command.run();
+                } finally {
+                    try {
+                        next();
+                    } catch (RejectedExecutionException ex) {
+                        // Workers are shutting down and the rest of the queue goes with them
+                    }
+                }
+            });
+
+            if (active == null) {
+                next();
+            }
+        }
+
+        private synchronized void next() {
+            active = tasks.poll();
+            if (active != null) {
+                try {
+                    workers.execute(active);
+                } catch (RejectedExecutionException ex) {
+                    tasks.clear();
+                    active = null;
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    public class PollTask {
+        private final String name;
+        private final Executor executor;
+        private final Supplier<CompletableFuture<?>> cycle;
+        private final LongSupplier period;
+        private volatile OverrunPolicy overrunPolicy;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> timerFuture;
+        private volatile long nextDue, lastLateness, overruns, skippedTicks;
+
+        PollTask(String name, Executor executor, Supplier<CompletableFuture<?>> cycle, LongSupplier period) {
+            this.name = name;
+            this.executor = executor;
+            this.cycle = cycle;
+            this.period = period;
+            this.overrunPolicy = OverrunPolicy.Coalesce;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public PollTask setOverrunPolicy(OverrunPolicy overrunPolicy) {
+            this.overrunPolicy = overrunPolicy == null ? OverrunPolicy.Coalesce : overrunPolicy;
+            return this;
+        }
+
+        public long getLastLateness() {
+            return lastLateness;
+        }
+
+        public long getOverruns() {
+            return overruns;
+        }
+
+        public long getSkippedTicks() {
+            return skippedTicks;
+        }
+
+        public long getNextExecution() {
+            long now = System.currentTimeMillis();
+            long due = nextDue + period();
+            if (due >= now) {
+                return due;
+            }
+
+            long missed = (now - due) / period() + 1;
+            return overrunPolicy == OverrunPolicy.Skip ? due + missed * period() : now;
+        }
+
+        public void cancel() {
+            cancelled = true;
+
+            ScheduledFuture<?> future = timerFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        long period() {
+            return Math.max(1, period.getAsLong());
+        }
+
+        private void schedule(long delay) {
+            if (cancelled) {
+                return;
+            }
+
+            try {
+                timerFuture = timer.schedule(this::dispatch, delay, TimeUnit.MILLISECONDS);
+            } catch (Exception ex) {
+                logger.debug("Unable to schedule {}", name, ex);
+            }
+        }
+
+        private void dispatch() {
+            if (cancelled) {
+                return;
+            }
+
+            try {
+                (executor == null ? workers : executor).execute(this::run);
+            } catch (Exception ex) {
+                logger.debug("Unable to dispatch {}", name, ex);
+            }
+        }
+
+        private void run() {
+            if (cancelled) {
+                return;
+            }
+
+            lastLateness = Math.max(0, System.currentTimeMillis() - nextDue);
+
+            CompletableFuture<?> future;
+            try {
+                future = cycle.get();
+            } catch (Throwable ex) {
+                logger.error("Error running {}", name, ex);
+                future = CompletableFuture.completedFuture(null);
+            }
+
+            future.whenComplete((v, ex) -> scheduleNext());
+        }
+
+        private void scheduleNext() {
+            long now = System.currentTimeMillis();
+            long p = period();
+            long due = nextDue + p;
+
+            // The cycle finished after its next tick: count the overrun and every tick whose time has already passed
+            if (due < now) {
+                long missed = (now - due) / p + 1;
+                overruns++;
+
+                switch (overrunPolicy) {
+                    case Skip:
+                        skippedTicks += missed;
+                        due += missed * p;
+                        break;
+                    case Coalesce:
+                        skippedTicks += missed - 1;
+                        due += (missed - 1) * p;
+                        break;
+                    case CatchUp:
+                        break;
+                }
+            }
+
+            nextDue = due;
+            schedule(Math.max(0, due - now));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.imdc.cybersciences.ser;
 
+import com.inductiveautomation.ignition.common.Dataset;
 import com.inductiveautomation.ignition.common.datasource.DatasourceStatus;
 import com.inductiveautomation.ignition.common.db.schema.ColumnProperty;
 import com.inductiveautomation.ignition.common.sqltags.model.types.DataType;
@@ -12,64 +13,100 @@ import com.inductiveautomation.ignition.gateway.localdb.persistence.IRecordListe
 import com.inductiveautomation.ignition.gateway.util.DBUtilities;
 import com.inductiveautomation.ignition.gateway.web.models.KeyValue;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.Header;
-import org.apache.http.HttpHost;
 import org.apache.http.HttpStatus;
 import org.apache.http.auth.AUTH;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.auth.UsernamePasswordCredentials;
-import org.apache.http.client.CredentialsProvider;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.conn.ssl.TrustAllStrategy;
-import org.apache.http.impl.auth.DigestScheme;
-import org.apache.http.impl.client.BasicAuthCache;
-import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.ssl.SSLContexts;
-import org.apache.http.util.EntityUtils;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.URL;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SERDevice implements IRecordListener<DatasourceRecord> {
     private static final int INIT_RETRY = 60000;
+    private static final long CHANNEL_INFO_REFRESH = 3600000;
+    private static final int JOURNAL_DRAIN_SIZE = 1000;
+    private static final int PRUNE_CHUNK_SIZE = 5000;
+    private static final long PRUNE_CHUNK_PAUSE = 250;
+    private static final long PRUNE_TIME_BUDGET = 300000;
     private final Logger logger;
     private SERDeviceManager deviceManager;
-    private ScheduledFuture channelPollFuture, eventPollFuture, pruneFuture;
+    private ScheduledFuture pruneFuture;
+    private PollScheduler.PollTask channelPoll, eventPoll, diagPoll;
     private SERDeviceRecord deviceRecord;
     private DeviceStatus deviceStatus;
     private DeviceDatasourceStatus datasourceStatus;
-    private String datasource, insertQuery, deleteQuery;
-    private String tableName, keyColumn, timestampColumn, sequenceNumberColumn, eventCodeColumn, eventTypeColumn, channelColumn, statusColumn, coincidentStatusColumn, timeQualityColumn;
+    private String datasource, deleteQuery, pruneRangeQuery, pruneCountQuery, columnQuote;
+    private EventPartitions partitions;
+    private EventLayout layout;
+    private EventTarget eventTarget;
+    private Map<String, EventTarget> partitionTargets;
+    private String tableName, keyColumn, deviceColumn, timestampColumn, sequenceNumberColumn, eventCodeColumn, eventTypeColumn, channelColumn, statusColumn, coincidentStatusColumn, timeQualityColumn;
     private boolean datasourceInitialized = false;
     private long lastDatasourceInitTry = 0;
-    private CredentialsProvider credsProvider;
-    private CloseableHttpClient httpClient;
-    private HttpClientContext context;
-    private BasicAuthCache authCache;
+    private DigestAuthenticator authenticator;
+    private EventCheckpoint checkpoint;
+    private EventJournal journal;
+    private volatile long eventPollInterval;
     private Map<String, ChannelConfig> channelConfigMap;
+    private AtomicInteger channelInfoGeneration;
+    private volatile int channelInfoLoadedGeneration;
+    private volatile long channelInfoLoadedTime;
+    private Map<String, TagHandle> tagHandles;
+    private Map<Integer, ChannelTags> channelTags;
+    private EventParser.EventTags lastEventTags;
+    private TagWriteBatch channelBatch, eventBatch, diagBatch;
+    private JsonStreamReader channelReader, eventReader, diagReader;
+    private ConcurrentLinkedQueue<JsonStreamReader> pageReaders;
+    private TagHandle[] diagTags;
+    private DiagnosticsSnapshot diagSnapshot;
+    private DeviceMetrics metrics;
+    private Executor pollExecutor;
+    private TagWriteBatch metricsBatch, pruneBatch;
+    private PollScheduler.PollTask metricsPoll;
 
     public SERDevice(SERDeviceManager deviceManager, SERDeviceRecord deviceRecord) {
         this.logger = LoggerFactory.getLogger("SER.Device." + deviceRecord.getName());
         this.deviceManager = deviceManager;
         this.deviceRecord = deviceRecord;
-        this.channelConfigMap = new HashMap<>();
+        this.channelConfigMap = new ConcurrentHashMap<>();
+        this.channelInfoGeneration = new AtomicInteger(1);
+        this.tagHandles = new ConcurrentHashMap<>();
+        this.channelTags = new ConcurrentHashMap<>();
+        this.channelBatch = deviceManager.getTagManager().newBatch();
+        this.eventBatch = deviceManager.getTagManager().newBatch();
+        this.diagBatch = deviceManager.getTagManager().newBatch();
+        this.metricsBatch = deviceManager.getTagManager().newBatch();
+        this.pruneBatch = deviceManager.getTagManager().newBatch();
+        this.channelReader = new JsonStreamReader();
+        this.eventReader = new JsonStreamReader();
+        this.diagReader = new JsonStreamReader();
+        this.pageReaders = new ConcurrentLinkedQueue<>();
+        this.diagTags = new TagHandle[SERResponseDecoder.DiagField.FIELDS.length];
+        this.metrics = new DeviceMetrics(logger.getName());
+        this.pollExecutor = deviceManager.getPollScheduler().newSerialExecutor();
     }
 
     private void initDatasource() {
@@ -77,6 +114,7 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
 
         this.tableName = deviceRecord.getTableName();
         this.keyColumn = deviceRecord.getKeyColumn();
+        this.deviceColumn = deviceRecord.getDeviceColumn();
         this.timestampColumn = deviceRecord.getTimestampColumn();
         this.sequenceNumberColumn = deviceRecord.getSequenceNumberColumn();
         this.eventCodeColumn = deviceRecord.getEventCodeColumn();
@@ -85,6 +123,7 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
         this.statusColumn = deviceRecord.getStatusColumn();
         this.coincidentStatusColumn = deviceRecord.getCoincidentStatusColumn();
         this.timeQualityColumn = deviceRecord.getTimeQualityColumn();
+        this.layout = deviceRecord.isCompactSchema() ? EventLayout.Compact : EventLayout.Standard;
 
         DatasourceRecord dsr = deviceManager.getGatewayContext().getPersistenceInterface().find(DatasourceRecord.META, deviceRecord.getDatasourceId());
         this.datasource = dsr == null ? null : dsr.getName();
@@ -99,32 +138,49 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
                     return;
                 }
 
-                if (deviceRecord.isAutoCreate() && !checkTable()) {
+                columnQuote = ds.getTranslator().getColumnQuoteChar();
+
+                // Partition tables are created as events arrive for them, so they are always verified regardless of Auto Create
+                partitions = new EventPartitions(tableName, deviceRecord.getPartitionMode());
+                partitionTargets = new ConcurrentHashMap<>();
+                if (partitions.isPartitioned()) {
+                    if (!checkTable(partitions.tableFor(System.currentTimeMillis()))) {
+                        setDatasourceStatus(DeviceDatasourceStatus.NOTVERIFIED);
+                        return;
+                    }
+                } else if (deviceRecord.isAutoCreate() && !checkTable(tableName)) {
                     setDatasourceStatus(DeviceDatasourceStatus.NOTVERIFIED);
                     return;
+                } else if (!deviceRecord.isAutoCreate() && !checkDeviceColumn(tableName)) {
+                    setDatasourceStatus(DeviceDatasourceStatus.NOTVERIFIED);
+                    return;
+                }
+
+                if (layout == EventLayout.Compact && (partitions.isPartitioned() || deviceRecord.isAutoCreate())) {
+                    checkCodeTable();
                 }
 
-                String q = ds.getTranslator().getColumnQuoteChar();
+                String q = columnQuote;
+                eventTarget = buildEventTarget(tableName);
 
                 StringBuilder sb = new StringBuilder();
-                sb.append("INSERT INTO ").append(tableName);
-                sb.append(" (");
-                sb.append(q).append(sequenceNumberColumn).append(q).append(", ");
-                sb.append(q).append(timestampColumn).append(q).append(", ");
-                sb.append(q).append(eventCodeColumn).append(q).append(", ");
-                sb.append(q).append(eventTypeColumn).append(q).append(", ");
-                sb.append(q).append(channelColumn).append(q).append(", ");
-                sb.append(q).append(statusColumn).append(q).append(", ");
-                sb.append(q).append(coincidentStatusColumn).append(q).append(", ");
-                sb.append(q).append(timeQualityColumn).append(q);
-                sb.append(") VALUES (?,?,?,?,?,?,?,?)");
-                insertQuery = sb.toString();
+                sb.append("DELETE FROM ").append(tableName).append(" WHERE ");
+                sb.append(q).append(timestampColumn).append(q).append(" < ? AND ");
+                sb.append(q).append(keyColumn).append(q).append(" >= ? AND ");
+                sb.append(q).append(keyColumn).append(q).append(" < ?");
+                deleteQuery = sb.toString();
 
                 sb.setLength(0);
 
-                sb.append("DELETE FROM ").append(tableName).append(" WHERE ");
-                sb.append(q).append(timestampColumn).append(q).append(" < ?");
-                deleteQuery = sb.toString();
+                sb.append("SELECT MIN(").append(q).append(keyColumn).append(q).append("), MAX(").append(q).append(keyColumn).append(q).append(") FROM ").append(tableName);
+                sb.append(" WHERE ").append(q).append(timestampColumn).append(q).append(" < ?");
+                pruneRangeQuery = sb.toString();
+
+                sb.setLength(0);
+
+                sb.append("SELECT COUNT(*) FROM ").append(tableName);
+                sb.append(" WHERE ").append(q).append(timestampColumn).append(q).append(" < ?");
+                pruneCountQuery = sb.toString();
 
                 if (deviceRecord.isPruneEnabled()) {
                     if (pruneFuture != null) {
@@ -134,6 +190,8 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
                     pruneFuture = deviceManager.getGatewayContext().getExecutionManager().scheduleWithFixedDelay(this::prune, 30, 30, TimeUnit.MINUTES);
                 }
 
+                reconcileCheckpoint();
+
                 datasourceInitialized = true;
                 setDatasourceStatus(DeviceDatasourceStatus.VALID);
             }
@@ -143,12 +201,196 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
         }
     }
 
+    private EventTarget buildEventTarget(String table) {
+        if (layout == EventLayout.Compact) {
+            return new EventTarget(table, columnQuote, layout, sequenceNumberColumn, timestampColumn, eventCodeColumn, channelColumn, statusColumn, coincidentStatusColumn, timeQualityColumn, deviceColumn);
+        }
+        return new EventTarget(table, columnQuote, layout, sequenceNumberColumn, timestampColumn, eventCodeColumn, eventTypeColumn, channelColumn, statusColumn, coincidentStatusColumn, timeQualityColumn, deviceColumn);
+    }
+
+    private String buildMaxSequenceNumberQuery(String table) {
+        return "SELECT MAX(" + columnQuote + sequenceNumberColumn + columnQuote + ") FROM " + table + " WHERE " + columnQuote + deviceColumn + columnQuote + " = ?";
+    }
+
+    private void reconcileCheckpoint() {
+        try (SRConnection con = deviceManager.getGatewayContext().getDatasourceManager().getConnection(datasource)) {
+            // Tables are shared between devices, so only this device's rows may move its checkpoint; without a device column there is
+            // no safe answer and the local checkpoint is kept as is
+            Object max = null;
+            if (partitions.isPartitioned()) {
+                // The newest partition holding any rows has the highest sequence number
+                for (String partition : listPartitions(con)) {
+                    if (!hasColumn(con, partition, deviceColumn)) {
+                        logger.info("Event partition \"{}\" has no \"{}\" column, not reconciling the event checkpoint", partition, deviceColumn);
+                        return;
+                    }
+
+                    max = con.runScalarPrepQuery(buildMaxSequenceNumberQuery(partition), deviceRecord.getName());
+                    if (max != null) {
+                        break;
+                    }
+                }
+            } else {
+                if (!hasColumn(con, tableName, deviceColumn)) {
+                    logger.info("Event table \"{}\" has no \"{}\" column, not reconciling the event checkpoint", tableName, deviceColumn);
+                    return;
+                }
+
+                max = con.runScalarPrepQuery(buildMaxSequenceNumberQuery(tableName), deviceRecord.getName());
+            }
+            checkpoint.reconcile(max == null ? null : ((Number) max).intValue());
+        } catch (Exception ex) {
+            logger.warn("Error reading last stored sequence number from \"{}\"", tableName, ex);
+        }
+    }
+
+    /**
+     * Tables that aren't auto created are still written with the device column, which keys events and checkpoints, so it must exist.
+     */
+    private boolean checkDeviceColumn(String table) throws SQLException {
+        try (SRConnection con = deviceManager.getGatewayContext().getDatasourceManager().getConnection(datasource)) {
+            if (!hasColumn(con, table, deviceColumn)) {
+                logger.error("Table \"{}\" doesn't exist or has no \"{}\" column. Add the column or enable Auto Create, events won't be stored until then.", table, deviceColumn);
+                return false;
+            }
+            return checkColumnTypes(con, table);
+        }
+    }
+
+    /**
+     * Verifying a table only adds missing columns, so a table created with the other layout keeps column types every write would fail on.
+     */
+    private boolean checkColumnTypes(SRConnection con, String table) throws SQLException {
+        boolean compact = layout == EventLayout.Compact;
+        String[] columns = compact ? new String[]{eventCodeColumn, channelColumn, statusColumn, coincidentStatusColumn, timeQualityColumn} : new String[]{statusColumn, timeQualityColumn};
+
+        DatabaseMetaData metaData = con.getMetaData();
+        for (String candidate : new String[]{table, table.toUpperCase(), table.toLowerCase()}) {
+            try (ResultSet rs = metaData.getColumns(con.getCatalog(), currentSchema(con), candidate, null)) {
+                while (rs.next()) {
+                    String column = rs.getString("COLUMN_NAME");
+                    for (String expected : columns) {
+                        if (expected.equalsIgnoreCase(column) && isIntegerType(rs.getInt("DATA_TYPE")) != compact) {
+                            logger.error("Column \"{}\" of table \"{}\" is {}, but the {} schema stores {} in it. Use a separate table name for the {} schema. Events won't be stored until then.",
+                                    column, table, rs.getString("TYPE_NAME"), compact ? "compact" : "standard", compact ? "integer codes" : "text", compact ? "compact" : "standard");
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIntegerType(int type) {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String currentSchema(SRConnection con) {
+        try {
+            return con.getSchema();
+        } catch (Throwable ex) {
+            // Drivers older than JDBC 4.1 don't report it
+            return null;
+        }
+    }
+
+    private static boolean hasColumn(SRConnection con, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = con.getMetaData();
+        for (String candidate : new String[]{table, table.toUpperCase(), table.toLowerCase()}) {
+            try (ResultSet rs = metaData.getColumns(con.getCatalog(), currentSchema(con), candidate, null)) {
+                while (rs.next()) {
+                    if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<String> listPartitions(SRConnection con) throws SQLException {
+        List<String> ret = new ArrayList<>();
+        try (ResultSet rs = con.getMetaData().getTables(con.getCatalog(), currentSchema(con), "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                String table = rs.getString("TABLE_NAME");
+                if (partitions.endOf(table) >= 0) {
+                    ret.add(table);
+                }
+            }
+        }
+
+        ret.sort(Comparator.comparingLong(partitions::endOf).reversed());
+        return ret;
+    }
+
+    private Map<EventTarget, List<EventParser.Event>> routeToPartitions(EventBatch page) {
+        if (!partitions.isPartitioned()) {
+            return Collections.singletonMap(eventTarget, page.getEvents());
+        }
+
+        Map<EventTarget, List<EventParser.Event>> ret = new LinkedHashMap<>();
+        for (EventParser.Event event : page.getEvents()) {
+            String partition = partitions.tableFor(event.getMsTime());
+            EventTarget target = partitionTargets.get(partition);
+            if (target == null) {
+                if (!checkTable(partition)) {
+                    throw new IllegalStateException("Unable to verify event partition \"" + partition + "\"");
+                }
+                target = buildEventTarget(partition);
+                partitionTargets.put(partition, target);
+            }
+            ret.computeIfAbsent(target, k -> new ArrayList<>()).add(event);
+        }
+        return ret;
+    }
+
     private String getTagPrefix() {
         return String.format("%s", deviceRecord.getName());
     }
 
+    private String getTagPath(String tag) {
+        return String.format("%s/%s", getTagPrefix(), tag);
+    }
+
+    private TagHandle handle(String tag) {
+        TagHandle handle = tagHandles.get(tag);
+        if (handle == null) {
+            handle = deviceManager.getTagManager().resolve(getTagPath(tag));
+            tagHandles.put(tag, handle);
+        }
+        return handle;
+    }
+
+    private ChannelTags getChannelTags(int channelNum) throws Exception {
+        ChannelTags tags = channelTags.get(channelNum);
+        if (tags == null) {
+            String channel = StringUtils.leftPad(Integer.toString(channelNum), 2, "0");
+            String channelTagPath = getTagPath("Channels/Channel" + channel);
+
+            if (!deviceManager.getTagManager().tagExists(channelTagPath)) {
+                TagBuilder builder = TagBuilder.createUDTInstance("Channel", channelTagPath);
+                deviceManager.getTagManager().registerUDT(builder.build());
+            }
+
+            tags = new ChannelTags(deviceManager.getTagManager(), channel, channelTagPath);
+            channelTags.put(channelNum, tags);
+        }
+        return tags;
+    }
+
     public void updateTag(String tag, Object value) {
-        deviceManager.getTagManager().tagUpdate(String.format("%s/%s", getTagPrefix(), tag), value);
+        deviceManager.getTagManager().tagUpdate(handle(tag), value);
     }
 
     private void registerUDTs() throws Exception {
@@ -163,6 +405,50 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
 
         builder = TagBuilder.createUDTInstance("Diagnostics", String.format("%s/Diagnostics", getTagPrefix()));
         deviceManager.getTagManager().registerUDT(builder.build());
+
+        resolveTagHandles();
+    }
+
+    private void resolveTagHandles() {
+        handle("Status/Status");
+        handle("Status/DatabaseStatus");
+        handle("Status/Channel/LastExecution");
+        handle("Status/Channel/NextExecution");
+        handle("Status/Channel/LastExecutionDuration");
+        handle("Status/Channel/Lateness");
+        handle("Status/Channel/Overruns");
+        handle("Status/Channel/SkippedTicks");
+        handle("Status/Event/LastExecution");
+        handle("Status/Event/NextExecution");
+        handle("Status/Event/LastExecutionDuration");
+        handle("Status/Event/PollInterval");
+        handle("Status/Event/Lateness");
+        handle("Status/Event/Overruns");
+        handle("Status/Event/SkippedTicks");
+        handle("Status/Event/JournalPending");
+        handle("Status/Auth/Challenges");
+        handle("Status/Auth/StaleNonces");
+        handle("Status/Prune/LastExecution");
+        handle("Status/Prune/LastExecutionDuration");
+        handle("Status/Prune/Deleted");
+        handle("Status/Prune/Backlog");
+        handle("Status/Prune/DroppedPartitions");
+        for (DeviceMetrics.Timer timer : DeviceMetrics.Timer.TIMERS) {
+            handle("Status/Metrics/" + timer.name() + "/Count");
+            handle("Status/Metrics/" + timer.name() + "/P50");
+            handle("Status/Metrics/" + timer.name() + "/P95");
+            handle("Status/Metrics/" + timer.name() + "/P99");
+            handle("Status/Metrics/" + timer.name() + "/Max");
+        }
+        handle("EventStatus/NumberOfEvents");
+        handle("EventStatus/FirstRecord");
+        handle("EventStatus/LastRecord");
+        handle("EventStatus/LastSequenceNumber");
+        lastEventTags = new EventParser.EventTags(deviceManager.getTagManager(), getTagPrefix());
+
+        for (SERResponseDecoder.DiagField field : SERResponseDecoder.DiagField.FIELDS) {
+            diagTags[field.ordinal()] = handle("Diagnostics/" + field.name());
+        }
     }
 
     public void startup() {
@@ -184,26 +470,47 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
             return;
         }
 
-        try {
-            credsProvider = new BasicCredentialsProvider();
-            credsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(deviceRecord.getUsername(), deviceRecord.getPassword()));
+        authenticator = new DigestAuthenticator(deviceRecord.getUsername(), deviceRecord.getPassword());
+        checkpoint = new EventCheckpoint(logger, deviceManager.getCheckpointDir(), deviceRecord.getName());
+        checkpoint.load();
 
-            httpClient = HttpClients.custom().setDefaultCredentialsProvider(credsProvider).setSSLSocketFactory(new SSLConnectionSocketFactory(SSLContexts.custom().loadTrustMaterial(null, new TrustAllStrategy()).build(), NoopHostnameVerifier.INSTANCE)).build();
-            context = HttpClientContext.create();
-            authCache = new BasicAuthCache();
-            context.setAuthCache(authCache);
-        } catch (Throwable ex) {
-            logger.error("Error creating HTTP client", ex);
+        journal = new EventJournal(logger, deviceManager.getJournalDir(), deviceRecord.getName(), deviceRecord.getEventJournalCapacity());
+        try {
+            journal.open();
+        } catch (Throwable t) {
+            logger.error("Error opening event journal", t);
             setDeviceStatus(DeviceStatus.FAULTED);
             return;
         }
 
+        // Events already journaled don't need to be fetched again, even if they haven't reached the database yet
+        Integer journaledSequenceNumber = journal.getLastSequenceNumber();
+        Integer polledSequenceNumber = checkpoint.getPolledSequenceNumber();
+        if (journaledSequenceNumber != null && (polledSequenceNumber == null || journaledSequenceNumber > polledSequenceNumber)) {
+            checkpoint.polled(journaledSequenceNumber);
+        }
+
         setDeviceStatus(DeviceStatus.STARTING);
         DatasourceRecord.META.addRecordListener(this);
         initDatasource();
 
-        channelPollFuture = deviceManager.getGatewayContext().getExecutionManager().scheduleWithFixedDelay(this::channelRun, deviceRecord.getChannelPollRate(), deviceRecord.getChannelPollRate(), TimeUnit.MILLISECONDS);
-        eventPollFuture = deviceManager.getGatewayContext().getExecutionManager().scheduleWithFixedDelay(this::eventRun, deviceRecord.getEventPollRate(), deviceRecord.getEventPollRate(), TimeUnit.MILLISECONDS);
+        diagSnapshot = null;
+        invalidateChannelInfo();
+        eventPollInterval = deviceRecord.isAdaptiveEventPolling() ? clampEventPollInterval(deviceRecord.getEventPollRate()) : deviceRecord.getEventPollRate();
+
+        PollScheduler scheduler = deviceManager.getPollScheduler();
+        PollScheduler.OverrunPolicy overrunPolicy = deviceRecord.getPollOverrunPolicy();
+        // All of a device's cycles and their stages share one serial executor, so a slow device never holds more than one poll worker
+        diagPoll = scheduler.schedule(logger.getName() + ".Diagnostics", pollExecutor, this::diagRun, deviceRecord::getDiagPollRate, deviceRecord.getChannelPollRate()).setOverrunPolicy(overrunPolicy);
+        channelPoll = scheduler.schedule(logger.getName() + ".Channels", pollExecutor, this::channelRun, deviceRecord::getChannelPollRate).setOverrunPolicy(overrunPolicy);
+        eventPoll = scheduler.schedule(logger.getName() + ".Events", pollExecutor, this::eventRun, () -> eventPollInterval).setOverrunPolicy(overrunPolicy);
+        metricsPoll = scheduler.schedule(logger.getName() + ".Metrics", pollExecutor, this::metricsRun, () -> DeviceMetrics.PUBLISH_INTERVAL);
+
+        try {
+            metrics.register(deviceManager.getGatewayContext().getMetricRegistry());
+        } catch (Throwable ex) {
+            logger.warn("Error registering device metrics", ex);
+        }
         setDeviceStatus(DeviceStatus.RUNNING);
     }
 
@@ -212,14 +519,6 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
 
         DatasourceRecord.META.removeRecordListener(this);
 
-        try {
-            if (httpClient != null) {
-                httpClient.close();
-            }
-        } catch (Throwable ex) {
-            logger.error("Error shutting down HTTP client", ex);
-        }
-
         try {
             if (pruneFuture != null) {
                 pruneFuture.cancel(true);
@@ -229,39 +528,73 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
         }
 
         try {
-            if (channelPollFuture != null) {
-                channelPollFuture.cancel(true);
+            if (channelPoll != null) {
+                channelPoll.cancel();
             }
         } catch (Throwable ex) {
             logger.error("Error shutting down channel polling execution", ex);
         }
 
         try {
-            if (eventPollFuture != null) {
-                eventPollFuture.cancel(true);
+            if (eventPoll != null) {
+                eventPoll.cancel();
             }
         } catch (Throwable ex) {
             logger.error("Error shutting down event polling execution", ex);
         }
+
+        try {
+            if (diagPoll != null) {
+                diagPoll.cancel();
+            }
+        } catch (Throwable ex) {
+            logger.error("Error shutting down diagnostics polling execution", ex);
+        }
+
+        try {
+            if (metricsPoll != null) {
+                metricsPoll.cancel();
+            }
+            metrics.unregister(deviceManager.getGatewayContext().getMetricRegistry());
+        } catch (Throwable ex) {
+            logger.error("Error shutting down metrics", ex);
+        }
+
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (Throwable ex) {
+            logger.error("Error closing event journal", ex);
+        }
     }
 
-    private boolean checkTable() {
+    private boolean checkTable(String table) {
         Datasource ds = deviceManager.getGatewayContext().getDatasourceManager().getDatasource(datasource);
         if (ds == null || ds.getStatus() == DatasourceStatus.DISABLED) {
             logger.error("Datasource '{}' {}. Device will be unavailable until targeted to valid database.", datasource, ds == null ? "doesn't exist" : "is disabled");
             return false;
         }
 
-        DBTableSchema schema = new DBTableSchema(tableName, ds.getTranslator());
+        DBTableSchema schema = new DBTableSchema(table, ds.getTranslator());
         schema.addRequiredColumn(keyColumn, DataType.Int4, EnumSet.of(ColumnProperty.PrimaryKey, ColumnProperty.AutoIncrement));
+        schema.addRequiredColumn(deviceColumn, DataType.String, EnumSet.of(ColumnProperty.Indexed));
         schema.addRequiredColumn(timestampColumn, DataType.Int8, EnumSet.of(ColumnProperty.Indexed));
         schema.addRequiredColumn(sequenceNumberColumn, DataType.Int4, EnumSet.of(ColumnProperty.Indexed));
-        schema.addRequiredColumn(eventCodeColumn, DataType.Int4, EnumSet.of(ColumnProperty.Indexed));
-        schema.addRequiredColumn(eventTypeColumn, DataType.String, null);
-        schema.addRequiredColumn(channelColumn, DataType.Int4, EnumSet.of(ColumnProperty.Indexed));
-        schema.addRequiredColumn(statusColumn, DataType.String, null);
-        schema.addRequiredColumn(coincidentStatusColumn, DataType.Int8, null);
-        schema.addRequiredColumn(timeQualityColumn, DataType.String, null);
+        if (layout == EventLayout.Compact) {
+            schema.addRequiredColumn(eventCodeColumn, DataType.Int2, EnumSet.of(ColumnProperty.Indexed));
+            schema.addRequiredColumn(channelColumn, DataType.Int2, EnumSet.of(ColumnProperty.Indexed));
+            schema.addRequiredColumn(statusColumn, DataType.Int2, null);
+            schema.addRequiredColumn(coincidentStatusColumn, DataType.Int4, null);
+            schema.addRequiredColumn(timeQualityColumn, DataType.Int2, null);
+        } else {
+            schema.addRequiredColumn(eventCodeColumn, DataType.Int4, EnumSet.of(ColumnProperty.Indexed));
+            schema.addRequiredColumn(eventTypeColumn, DataType.String, null);
+            schema.addRequiredColumn(channelColumn, DataType.Int4, EnumSet.of(ColumnProperty.Indexed));
+            schema.addRequiredColumn(statusColumn, DataType.String, null);
+            schema.addRequiredColumn(coincidentStatusColumn, DataType.Int8, null);
+            schema.addRequiredColumn(timeQualityColumn, DataType.String, null);
+        }
 
         SRConnection conn = null;
 
@@ -270,14 +603,30 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
             schema.verifyAndUpdate(conn);
             //Update columns with proper casing.
             keyColumn = schema.getCasedColumnName(keyColumn);
+            deviceColumn = schema.getCasedColumnName(deviceColumn);
             timestampColumn = schema.getCasedColumnName(timestampColumn);
             sequenceNumberColumn = schema.getCasedColumnName(sequenceNumberColumn);
             eventCodeColumn = schema.getCasedColumnName(eventCodeColumn);
-            eventTypeColumn = schema.getCasedColumnName(eventTypeColumn);
+            if (layout != EventLayout.Compact) {
+                eventTypeColumn = schema.getCasedColumnName(eventTypeColumn);
+            }
             channelColumn = schema.getCasedColumnName(channelColumn);
             statusColumn = schema.getCasedColumnName(statusColumn);
             coincidentStatusColumn = schema.getCasedColumnName(coincidentStatusColumn);
             timeQualityColumn = schema.getCasedColumnName(timeQualityColumn);
+
+            if (!checkColumnTypes(conn, table)) {
+                return false;
+            }
+
+            // Without the natural key index replays can't skip stored events, but storage still works, so this isn't fatal
+            try {
+                if (EventLoader.forConnection(conn).createKeyIndex(conn, buildEventTarget(table))) {
+                    logger.info("Created unique index on device, sequence number and timestamp for \"{}\"", table);
+                }
+            } catch (Exception e) {
+                logger.warn("Unable to create unique index on device, sequence number and timestamp for \"{}\". Duplicate events already in the table must be removed first.", table, e);
+            }
             return true;
         } catch (Exception e) {
             logger.error("Error verifying SER events table.", e);
@@ -287,25 +636,163 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
         }
     }
 
+    /**
+     * Creates and fills the lookup table with the display text for the codes stored by the compact schema.
+     */
+    private void checkCodeTable() {
+        String table = tableName + "_CODES";
+        Datasource ds = deviceManager.getGatewayContext().getDatasourceManager().getDatasource(datasource);
+        DBTableSchema schema = new DBTableSchema(table, ds.getTranslator());
+        schema.addRequiredColumn("CATEGORY", DataType.String, null);
+        schema.addRequiredColumn("CODE", DataType.Int2, null);
+        schema.addRequiredColumn("DISPLAY", DataType.String, null);
+
+        List<Object[]> codes = new ArrayList<>();
+        for (EventParser.EventCode code : EventParser.EventCode.values()) {
+            codes.add(new Object[]{EventLayout.CATEGORY_EVENT_CODE, code.ordinal(), code.getDisplay()});
+        }
+        for (EventParser.InputStatus status : EventParser.InputStatus.values()) {
+            codes.add(new Object[]{EventLayout.CATEGORY_INPUT_STATUS, status.ordinal(), status.toString()});
+        }
+        for (EventParser.TimeQuality quality : EventParser.TimeQuality.values()) {
+            codes.add(new Object[]{EventLayout.CATEGORY_TIME_QUALITY, quality.ordinal(), quality.toString()});
+        }
+
+        try (SRConnection con = ds.getConnection()) {
+            schema.verifyAndUpdate(con);
+
+            Object count = con.runScalarPrepQuery("SELECT COUNT(*) FROM " + table);
+            if (count != null && ((Number) count).intValue() == codes.size()) {
+                return;
+            }
+
+            String q = columnQuote;
+            String insert = "INSERT INTO " + table + " (" + q + schema.getCasedColumnName("CATEGORY") + q + ", " + q + schema.getCasedColumnName("CODE") + q + ", " + q + schema.getCasedColumnName("DISPLAY") + q + ") VALUES (?, ?, ?)";
+
+            // Devices sharing the table refill it as they start, so the refill is one transaction and readers never see it empty or doubled
+            boolean autoCommit = con.getAutoCommit();
+            try {
+                if (autoCommit) {
+                    con.setAutoCommit(false);
+                }
+
+                con.runUpdateQuery("DELETE FROM " + table);
+                for (Object[] code : codes) {
+                    con.runPrepUpdate(insert, code);
+                }
+
+                if (autoCommit) {
+                    con.commit();
+                }
+            } catch (Exception ex) {
+                if (autoCommit) {
+                    con.rollback();
+                }
+                throw ex;
+            } finally {
+                if (autoCommit) {
+                    con.setAutoCommit(true);
+                }
+            }
+            logger.info("Filled event code lookup table \"{}\"", table);
+        } catch (Exception e) {
+            logger.warn("Error verifying event code lookup table \"{}\"", table, e);
+        }
+    }
+
     private void prune() {
+        long startTime = System.currentTimeMillis();
+        pruneBatch.update(handle("Status/Prune/LastExecution"), new Date(startTime));
+
         try {
             try (SRConnection con = deviceManager.getGatewayContext().getDatasourceManager().getConnection(datasource)) {
-                long now = System.currentTimeMillis();
+                int retentionDays = deviceManager.getTableRetentionDays(deviceRecord.getDatasourceId(), tableName);
+                if (retentionDays < 0) {
+                    logger.debug("Another device keeps SER events in \"{}\" forever, not pruning", tableName);
+                    return;
+                }
+
+                // Timestamps are stored as epoch milliseconds
+                long since = startTime - (long) TimeUnits.toMillis((double) retentionDays, TimeUnits.DAY);
+
+                if (partitions.isPartitioned()) {
+                    dropExpiredPartitions(con, since);
+                    return;
+                }
+
+                Object count = con.runScalarPrepQuery(pruneCountQuery, since);
+                long backlog = count == null ? 0 : ((Number) count).longValue();
+                pruneBatch.update(handle("Status/Prune/Backlog"), backlog);
+                if (backlog == 0) {
+                    return;
+                }
+
+                Dataset range = con.runPrepQuery(pruneRangeQuery, since);
+                if (range.getRowCount() == 0 || range.getValueAt(0, 0) == null) {
+                    return;
+                }
+
+                // Delete in key ranges so each statement only locks a bounded slice of the table, pausing between chunks to let inserts through
+                long key = ((Number) range.getValueAt(0, 0)).longValue();
+                long maxKey = ((Number) range.getValueAt(0, 1)).longValue();
+                long deleted = 0;
+                while (key <= maxKey) {
+                    if (System.currentTimeMillis() - startTime >= PRUNE_TIME_BUDGET) {
+                        logger.debug("Prune time budget exhausted with {} old SER events remaining", backlog);
+                        break;
+                    }
+
+                    int affected = con.runPrepUpdate(deleteQuery, since, key, key + PRUNE_CHUNK_SIZE);
+                    key += PRUNE_CHUNK_SIZE;
+                    deleted += affected;
+                    backlog = Math.max(0, backlog - affected);
+
+                    pruneBatch.update(handle("Status/Prune/Deleted"), deleted);
+                    pruneBatch.update(handle("Status/Prune/Backlog"), backlog);
+                    pruneBatch.submit();
+
+                    if (key <= maxKey) {
+                        Thread.sleep(PRUNE_CHUNK_PAUSE);
+                    }
+                }
 
-                Date since = new Date(now - TimeUnits.toMillis((double) deviceRecord.getRetentionDays(), TimeUnits.DAY));
-                int affected = con.runPrepUpdate(deleteQuery, since);
-                if (affected > 0 && logger.isDebugEnabled()) {
-                    logger.debug("Deleted {} old SER events (from {} to now)", affected, since);
+                if (deleted > 0 && logger.isDebugEnabled()) {
+                    logger.debug("Deleted {} old SER events (from {} to now)", deleted, new Date(since));
                 }
             }
-        } catch (SQLException e) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
             logger.error("Error pruning SER events table \"{}\" due to underlying exception.", deviceRecord.getTableName(), e);
+        } finally {
+            pruneBatch.update(handle("Status/Prune/LastExecutionDuration"), System.currentTimeMillis() - startTime);
+            pruneBatch.submit();
+        }
+    }
+
+    private void dropExpiredPartitions(SRConnection con, long since) throws SQLException {
+        int dropped = 0;
+        String schema = currentSchema(con);
+        for (String partition : listPartitions(con)) {
+            // Only drop partitions whose whole time range is past retention
+            if (partitions.endOf(partition) <= since) {
+                String q = columnQuote;
+                con.runUpdateQuery("DROP TABLE " + (schema == null ? "" : q + schema + q + ".") + q + partition + q);
+                partitionTargets.remove(partition);
+                dropped++;
+                logger.debug("Dropped expired SER events partition \"{}\"", partition);
+            }
         }
+
+        pruneBatch.update(handle("Status/Prune/DroppedPartitions"), dropped);
+        pruneBatch.update(handle("Status/Prune/Backlog"), 0L);
     }
 
     @Override
     public void recordUpdated(DatasourceRecord datasourceRecord) {
         if (datasourceRecord.getId() == deviceRecord.getDatasourceId()) {
+            // The datasource may have been renamed or pointed at another database, so its writer is started fresh
+            deviceManager.removeEventWriter(datasource);
             datasourceInitialized = false;
             lastDatasourceInitTry = 0;
             initDatasource();
@@ -330,12 +817,17 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
             }
 
             setDatasourceStatus(DeviceDatasourceStatus.NOTCONFIGURED);
+            deviceManager.removeEventWriter(datasource);
             datasource = null;
             datasourceInitialized = false;
             lastDatasourceInitTry = 0;
         }
     }
 
+    public String getDatasource() {
+        return datasource;
+    }
+
     public synchronized DeviceStatus getDeviceStatus() {
         return deviceStatus;
     }
@@ -382,215 +874,534 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
         return datasourceInitialized;
     }
 
-    public void channelRun() {
+    private synchronized Boolean isDatasourceConfigured() {
+        return datasource != null;
+    }
+
+    public CompletableFuture<Void> channelRun() {
+        TagWriteBatch batch = channelBatch;
         try {
-            updateTag("Status/Channel/LastExecution", new Date());
+            batch.update(handle("Status/Channel/LastExecution"), new Date());
             long functionStartTime = System.currentTimeMillis();
 
-            getDiag();
-            getChannelInfo();
-            getChannelData();
-
-            long functionEndTime = System.currentTimeMillis();
-            long functionTotalTime = functionEndTime - functionStartTime;
-            updateTag("Status/Channel/LastExecutionDuration", functionTotalTime);
-            updateTag("Status/Channel/NextExecution", new Date(new Date().getTime() + deviceRecord.getChannelPollRate()));
-            setDeviceStatus(DeviceStatus.RUNNING);
+            return (isChannelInfoStale() ? getChannelInfo(batch) : CompletableFuture.<Void>completedFuture(null))
+                    .thenComposeAsync(v -> getChannelData(batch), pollExecutor())
+                    .whenCompleteAsync((v, ex) -> {
+                        if (ex == null) {
+                            long functionEndTime = System.currentTimeMillis();
+                            long functionTotalTime = functionEndTime - functionStartTime;
+                            batch.update(handle("Status/Channel/LastExecutionDuration"), functionTotalTime);
+                            updatePollStatus(batch, "Channel", channelPoll);
+                            updateAuthStatus(batch);
+                            batch.submit();
+                            setDeviceStatus(DeviceStatus.RUNNING);
+                        } else {
+                            updatePollStatus(batch, "Channel", channelPoll);
+                            updateAuthStatus(batch);
+                            batch.submit();
+                            setDeviceStatus(DeviceStatus.FAULTED);
+                            logger.error("Error polling device for channel status", unwrap(ex));
+                        }
+                    }, pollExecutor());
         } catch (Throwable ex) {
+            batch.submit();
             setDeviceStatus(DeviceStatus.FAULTED);
             logger.error("Error polling device for channel status", ex);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public CompletableFuture<Void> diagRun() {
+        TagWriteBatch batch = diagBatch;
+        try {
+            return getDiag(batch).whenCompleteAsync((v, ex) -> {
+                batch.submit();
+                if (ex != null) {
+                    logger.error("Error polling device for diagnostics", unwrap(ex));
+                }
+            }, pollExecutor());
+        } catch (Throwable ex) {
+            batch.submit();
+            logger.error("Error polling device for diagnostics", ex);
+            return CompletableFuture.completedFuture(null);
         }
     }
 
-    public void eventRun() {
+    public CompletableFuture<Void> eventRun() {
+        TagWriteBatch batch = eventBatch;
         try {
-            updateTag("Status/Event/LastExecution", new Date());
+            batch.update(handle("Status/Event/LastExecution"), new Date());
             long functionStartTime = System.currentTimeMillis();
 
             if (isDatasourceNotInitialized()) {
                 initDatasource();
             }
 
-            if (isDatasourceInitialized()) {
-                getEvents();
-            }
-
-            long functionEndTime = System.currentTimeMillis();
-            long functionTotalTime = functionEndTime - functionStartTime;
-            updateTag("Status/Event/LastExecutionDuration", functionTotalTime);
-            updateTag("Status/Event/NextExecution", new Date(new Date().getTime() + deviceRecord.getEventPollRate()));
-            setDeviceStatus(DeviceStatus.RUNNING);
+            // Events are always fetched into the journal; the database only gates when they are drained
+            return getEvents(batch).handleAsync((newEvents, ex) -> drainJournal().handleAsync((drained, drainEx) -> {
+                batch.update(handle("Status/Event/JournalPending"), journal.getPending());
+
+                eventPollInterval = nextEventPollInterval(ex == null ? newEvents : 0);
+                batch.update(handle("Status/Event/PollInterval"), eventPollInterval);
+
+                if (ex == null && drainEx == null) {
+                    long functionEndTime = System.currentTimeMillis();
+                    long functionTotalTime = functionEndTime - functionStartTime;
+                    batch.update(handle("Status/Event/LastExecutionDuration"), functionTotalTime);
+                    updatePollStatus(batch, "Event", eventPoll);
+                    batch.submit();
+                    setDeviceStatus(DeviceStatus.RUNNING);
+                } else {
+                    updatePollStatus(batch, "Event", eventPoll);
+                    batch.submit();
+                    setDeviceStatus(DeviceStatus.FAULTED);
+                    if (ex != null) {
+                        logger.error("Error polling device for events", unwrap(ex));
+                    }
+                    if (drainEx != null) {
+                        logger.error("Error storing journaled events", unwrap(drainEx));
+                    }
+                }
+                return (Void) null;
+            }, pollExecutor()), pollExecutor()).thenCompose(cycle -> cycle);
         } catch (Throwable ex) {
+            batch.submit();
             setDeviceStatus(DeviceStatus.FAULTED);
             logger.error("Error polling device for events", ex);
+            return CompletableFuture.completedFuture(null);
         }
     }
 
-    private void getDiag() throws Exception {
-        String response = httpGet("/diag");
-        JSONObject jsonObj = new JSONObject(response);
-
-        updateTag("Diagnostics/Mac1", jsonObj.getString("mac1"));
-        updateTag("Diagnostics/Mac2", jsonObj.getString("mac2"));
-        updateTag("Diagnostics/Eport", jsonObj.getString("eport"));
-        updateTag("Diagnostics/Model", jsonObj.getString("model"));
-        updateTag("Diagnostics/DeviceName", jsonObj.getString("device_name"));
-        updateTag("Diagnostics/DeviceId", jsonObj.getString("device_ID"));
-        updateTag("Diagnostics/CatalogNumber", jsonObj.getString("catalog_number"));
-        updateTag("Diagnostics/DOM", jsonObj.getString("dom"));
-        updateTag("Diagnostics/SerialNumber", jsonObj.getString("serial_number"));
-        updateTag("Diagnostics/HardwareVersion", jsonObj.getString("hardware_version"));
-        updateTag("Diagnostics/FirmwareVersion", jsonObj.getString("firmware_version"));
-        updateTag("Diagnostics/Build", jsonObj.getInt("build"));
-        updateTag("Diagnostics/CFM0Version", jsonObj.getString("cfm0_version"));
-        updateTag("Diagnostics/CFM1Version", jsonObj.getString("cfm1_version"));
-        updateTag("Diagnostics/UFMVersion", jsonObj.getString("ufm_version"));
-        updateTag("Diagnostics/PCMVersion", jsonObj.getString("pcm_version"));
-        updateTag("Diagnostics/StorageTotal", jsonObj.getLong("storage_total"));
-        updateTag("Diagnostics/StorageFree", jsonObj.getLong("storage_free"));
-        updateTag("Diagnostics/StorageScale", jsonObj.getLong("storage_scale"));
-        updateTag("Diagnostics/SecondsUTC", jsonObj.getLong("secondsUTC"));
-        updateTag("Diagnostics/DSTActive", jsonObj.getInt("dst_active") != 0);
-        updateTag("Diagnostics/TimeZoneOffset", jsonObj.getInt("time_zone_offset"));
-        updateTag("Diagnostics/AltDateFormat", jsonObj.getInt("alt_date_format"));
-        updateTag("Diagnostics/AltTimeFormat", jsonObj.getInt("alt_time_format"));
-        updateTag("Diagnostics/TimeSourceSetup", jsonObj.getInt("time_source_setup"));
-        updateTag("Diagnostics/Slot1", jsonObj.getInt("slot1"));
-        updateTag("Diagnostics/Slot2", jsonObj.getInt("slot2"));
-    }
-
-    private void getChannelInfo() throws Exception {
-        String response = httpGet("/channels/name/ext");
-        JSONObject jsonObj = new JSONObject(response);
-        JSONArray channels = jsonObj.getJSONArray("channels_name_ext");
-        for (int i = 0; i < channels.length(); i++) {
-            JSONObject channelObj = channels.getJSONObject(i);
-            ChannelConfig channelConfig = ChannelConfig.fromChannelObj(channelObj);
-
-            String channelTagPath = "Channels/Channel" + channelConfig.getChannel();
-
-            channelConfigMap.put(channelConfig.getChannel(), channelConfig);
+    public CompletableFuture<Void> metricsRun() {
+        try {
+            metrics.publish(metricsBatch, this::handle);
+        } catch (Throwable ex) {
+            logger.error("Error publishing device metrics", ex);
+        }
+        metricsBatch.submit();
+        return CompletableFuture.completedFuture(null);
+    }
 
-            if (!deviceManager.getTagManager().tagExists(channelTagPath)) {
-                TagBuilder builder = TagBuilder.createUDTInstance("Channel", String.format("%s/%s", getTagPrefix(), channelTagPath));
-                deviceManager.getTagManager().registerUDT(builder.build());
+    private CompletableFuture<Void> drainJournal() {
+        if (!isDatasourceInitialized() || journal.getPending() == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // A closed journal still reports its pending count but has nothing to read
+        EventBatch page = journal.peek(JOURNAL_DRAIN_SIZE);
+        if (page.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        EventWriter writer = deviceManager.getEventWriter(datasource);
+        long startTime = System.nanoTime();
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        try {
+            for (Map.Entry<EventTarget, List<EventParser.Event>> partition : routeToPartitions(page).entrySet()) {
+                writes.add(writer.write(partition.getKey(), deviceRecord.getName(), partition.getValue()));
+            }
+        } catch (Exception ex) {
+            logger.warn("Error storing journaled events to \"{}\", {} events pending", tableName, journal.getPending(), ex);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Events are shared with other devices' batches by the datasource writer; the journal is only acknowledged once they commit
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).handleAsync((v, ex) -> {
+            if (ex != null) {
+                logger.warn("Error storing journaled events to \"{}\", {} events pending", tableName, journal.getPending(), unwrap(ex));
+                return false;
             }
 
-            updateTag(String.format("%s/Channel", channelTagPath), channelConfig.getChannel());
-            updateTag(String.format("%s/Name", channelTagPath), channelConfig.getName());
+            metrics.record(DeviceMetrics.Timer.DbStore, startTime);
+            journal.ack(page.size());
+            checkpoint.stored(page.getLastEvent().getSequenceNumber());
+            return true;
+        }, pollExecutor()).thenComposeAsync(stored -> stored ? drainJournal() : CompletableFuture.completedFuture(null), pollExecutor());
+    }
+
+    private long clampEventPollInterval(long interval) {
+        long min = Math.max(1, deviceRecord.getEventPollRateMin());
+        long max = Math.max(min, deviceRecord.getEventPollRateMax());
+        return Math.min(max, Math.max(min, interval));
+    }
+
+    private long nextEventPollInterval(int newEvents) {
+        if (!deviceRecord.isAdaptiveEventPolling()) {
+            return deviceRecord.getEventPollRate();
         }
+
+        // A full page or more means a burst is in progress, so drop straight to the floor; otherwise halve or back off by half
+        if (newEvents >= 100) {
+            return clampEventPollInterval(0);
+        } else if (newEvents > 0) {
+            return clampEventPollInterval(eventPollInterval / 2);
+        }
+        return clampEventPollInterval(eventPollInterval + eventPollInterval / 2);
     }
 
-    private void getChannelData() throws Exception {
-        String response = httpGet("/channels/status");
-        JSONObject jsonObj = new JSONObject(response);
-        Long status = jsonObj.getLong("status");
+    private void updatePollStatus(TagWriteBatch batch, String loop, PollScheduler.PollTask task) {
+        if (task == null) {
+            return;
+        }
 
-        response = httpGet("/channels/data");
-        jsonObj = new JSONObject(response);
-        JSONArray channels = jsonObj.getJSONArray("channels_data");
-        for (int i = 0; i < channels.length(); i++) {
-            Integer channelNum = i + 1;
-            String channel = StringUtils.leftPad(channelNum.toString(), 2, "0");
-            JSONObject channelObj = channels.getJSONObject(i);
+        batch.update(handle("Status/" + loop + "/NextExecution"), new Date(task.getNextExecution()));
+        batch.update(handle("Status/" + loop + "/Lateness"), task.getLastLateness());
+        batch.update(handle("Status/" + loop + "/Overruns"), task.getOverruns());
+        batch.update(handle("Status/" + loop + "/SkippedTicks"), task.getSkippedTicks());
+    }
 
-            ChannelConfig channelConfig = channelConfigMap.getOrDefault(channel, new ChannelConfig(channel, "", "Off", "On"));
+    private void updateAuthStatus(TagWriteBatch batch) {
+        batch.update(handle("Status/Auth/Challenges"), authenticator.getChallenges());
+        batch.update(handle("Status/Auth/StaleNonces"), authenticator.getStaleNonces());
+    }
+
+    private CompletableFuture<Void> getDiag(TagWriteBatch batch) {
+        return httpGet("/diag", diagReader, reader -> {
+            DiagnosticsSnapshot snapshot = new DiagnosticsSnapshot();
+            SERResponseDecoder.readDiag(reader, snapshot::set);
+            snapshot.diff(diagSnapshot, (field, value) -> batch.update(diagTags[field.ordinal()], value));
+            diagSnapshot = snapshot;
+            return null;
+        });
+    }
+
+    private boolean isChannelInfoStale() {
+        return channelInfoLoadedGeneration != channelInfoGeneration.get() || System.currentTimeMillis() - channelInfoLoadedTime >= CHANNEL_INFO_REFRESH;
+    }
 
-            String channelTagPath = "Channels/Channel" + channelConfig.getChannel();
-            Integer value = channelObj.getInt("value");
-            Boolean channelStatus = ((status >> i) & 0x1) == 0x1;
-            String channelStatusStr = channelStatus ? channelConfig.getOnText() : channelConfig.getOffText();
+    private void invalidateChannelInfo() {
+        channelInfoGeneration.incrementAndGet();
+    }
 
-            updateTag(String.format("%s/SecondsUTC", channelTagPath), channelObj.getLong("secondsUTC"));
-            updateTag(String.format("%s/DSTActive", channelTagPath), channelObj.getInt("dst_active") != 0);
-            updateTag(String.format("%s/Value", channelTagPath), channelStatus);
-            updateTag(String.format("%s/Counter", channelTagPath), value);
-            updateTag(String.format("%s/Status", channelTagPath), channelStatusStr);
+    private void checkConfigurationEvents(EventBatch page) {
+        for (EventParser.Event event : page.getEvents()) {
+            EventParser.EventCode eventCode = event.getEventCode();
+            if (eventCode == EventParser.EventCode.Code15 || eventCode == EventParser.EventCode.Code18) {
+                logger.debug("Device reported '{}', refreshing channel names", eventCode.getDisplay());
+                invalidateChannelInfo();
+                return;
+            }
         }
     }
 
-    private EventStatus getEventStatus() throws Exception {
-        String response = httpGet("/events/last");
-        JSONObject jsonObj = new JSONObject(response);
-        return EventStatus.fromEventObj(jsonObj);
+    private CompletableFuture<Void> getChannelInfo(TagWriteBatch batch) {
+        int generation = channelInfoGeneration.get();
+        long loadedTime = System.currentTimeMillis();
+
+        return httpGet("/channels/name/ext", channelReader, reader -> {
+            for (ChannelConfig channelConfig : SERResponseDecoder.readChannelNames(reader)) {
+                channelConfigMap.put(channelConfig.getChannel(), channelConfig);
+
+                ChannelTags tags = getChannelTags(Integer.parseInt(channelConfig.getChannel()));
+                batch.update(tags.channelTag, channelConfig.getChannel());
+                batch.update(tags.name, channelConfig.getName());
+            }
+
+            channelInfoLoadedGeneration = generation;
+            channelInfoLoadedTime = loadedTime;
+            return null;
+        });
     }
 
-    private void getEvents() throws Exception {
-        EventStatus eventStatus = getEventStatus();
+    private void applyInputEvents(EventBatch page, TagWriteBatch batch) throws Exception {
+        // Only the latest transition per channel in the page is published
+        EventParser.Event[] latest = null;
+        for (EventParser.Event event : page.getEvents()) {
+            if (event.getEventCode() == EventParser.EventCode.Code1 && event.getInput() >= 1 && event.getInput() <= 32) {
+                if (latest == null) {
+                    latest = new EventParser.Event[33];
+                }
+                latest[event.getInput()] = event;
+            }
+        }
 
-        Integer diffSequenceNumber = 0;
-        Integer lastSequenceNumber = (Integer) deviceManager.getTagManager().readTag(String.format("%s/EventStatus/LastSequenceNumber", getTagPrefix())).getValue();
-        if (lastSequenceNumber == null) {
-            diffSequenceNumber = eventStatus.getLastSequenceNumber();
-        } else {
-            diffSequenceNumber = eventStatus.getLastSequenceNumber() - lastSequenceNumber;
+        if (latest == null) {
+            return;
         }
 
-        if (diffSequenceNumber > 8192) {
-            diffSequenceNumber = 8192;
+        for (EventParser.Event event : latest) {
+            if (event == null) {
+                continue;
+            }
+
+            ChannelTags tags = getChannelTags(event.getInput());
+
+            // Backlog fetched after a restart or outage can be older than what the last poll already published
+            if (event.getMsTime() <= tags.polledStateTime) {
+                continue;
+            }
+
+            ChannelConfig channelConfig = channelConfigMap.get(tags.channel);
+            if (channelConfig == null) {
+                channelConfig = tags.defaultConfig;
+            }
+
+            boolean channelStatus = event.getInputStatus() == EventParser.InputStatus.On;
+            Date timestamp = event.getDate();
+            batch.update(tags.value, channelStatus, timestamp);
+            batch.update(tags.status, channelStatus ? channelConfig.getOnText() : channelConfig.getOffText(), timestamp);
+            tags.eventUpdateTime = System.currentTimeMillis();
         }
+    }
 
-        if (diffSequenceNumber > 0) {
-            Integer numIterations = (int) Math.ceil(diffSequenceNumber / 100.0);
-            Integer leftOver = diffSequenceNumber - ((numIterations - 1) * 100);
-            Integer nextRecord = eventStatus.getLastRecord() - (diffSequenceNumber - 1);
-            if (nextRecord < 0) {
-                nextRecord = 8192 + nextRecord;
+    private CompletableFuture<Void> getChannelData(TagWriteBatch batch) {
+        long pollStartTime = System.currentTimeMillis();
+        return httpGet("/channels/status", channelReader, SERResponseDecoder::readChannelStatus).thenComposeAsync(status ->
+                httpGet("/channels/data", channelReader, reader -> {
+                    SERResponseDecoder.readChannelData(reader, (index, secondsUTC, dstActive, value) -> {
+                        ChannelTags tags = getChannelTags(index + 1);
+                        ChannelConfig channelConfig = channelConfigMap.get(tags.channel);
+                        if (channelConfig == null) {
+                            channelConfig = tags.defaultConfig;
+                        }
+
+                        Boolean channelStatus = ((status >> index) & 0x1) == 0x1;
+                        String channelStatusStr = channelStatus ? channelConfig.getOnText() : channelConfig.getOffText();
+
+                        batch.update(tags.secondsUTC, secondsUTC);
+                        batch.update(tags.dstActive, dstActive);
+                        batch.update(tags.counter, value);
+
+                        // Don't let a poll that started before an input event was applied roll the channel back
+                        if (tags.eventUpdateTime < pollStartTime) {
+                            batch.update(tags.value, channelStatus);
+                            batch.update(tags.status, channelStatusStr);
+                            tags.polledStateTime = secondsUTC * 1000L;
+                        }
+                    });
+                    return null;
+                }), pollExecutor());
+    }
+
+    private CompletableFuture<EventStatus> getEventStatus() {
+        return httpGet("/events/last", eventReader, EventStatus::fromReader);
+    }
+
+    private CompletableFuture<Integer> getEvents(TagWriteBatch batch) {
+        return getEventStatus().thenComposeAsync(eventStatus -> {
+            Integer lastSequenceNumber = checkpoint.resume(eventStatus.getLastSequenceNumber(), eventStatus.getNumberOfEvents());
+            Integer diffSequenceNumber = 0;
+            if (lastSequenceNumber == null) {
+                diffSequenceNumber = eventStatus.getLastSequenceNumber();
+            } else {
+                diffSequenceNumber = eventStatus.getLastSequenceNumber() - lastSequenceNumber;
             }
 
-            EventParser.Event event = null;
-            for (int i = 0; i < numIterations; i++) {
-                Integer count = ((i + 1) < numIterations) ? 100 : leftOver;
+            if (diffSequenceNumber > 8192) {
+                diffSequenceNumber = 8192;
+            }
 
-                String response = httpGet(String.format("/events?record=%d&count=%d", nextRecord, count));
-                JSONObject jsonObj = new JSONObject(response);
-                JSONArray events = jsonObj.getJSONArray("events");
-                for (int j = 0; j < events.length(); j++) {
-                    JSONObject eventObj = events.getJSONObject(j);
-                    event = EventParser.parse(logger.getName(), insertQuery, eventObj.getString("r"));
-                    deviceManager.getGatewayContext().getHistoryManager().storeHistory(datasource, event);
+            CompletableFuture<EventParser.Event> fetch = CompletableFuture.completedFuture(null);
+            if (diffSequenceNumber > 0) {
+                Integer numIterations = (int) Math.ceil(diffSequenceNumber / 100.0);
+                Integer leftOver = diffSequenceNumber - ((numIterations - 1) * 100);
+                Integer nextRecord = eventStatus.getLastRecord() - (diffSequenceNumber - 1);
+                if (nextRecord < 0) {
+                    nextRecord = 8192 + nextRecord;
                 }
 
-                nextRecord += count;
-                if (nextRecord >= 8192) {
-                    nextRecord -= 8192;
+                List<EventPage> pages = new ArrayList<>(numIterations);
+                for (int i = 0; i < numIterations; i++) {
+                    Integer count = ((i + 1) < numIterations) ? 100 : leftOver;
+                    pages.add(new EventPage(nextRecord, count));
+
+                    nextRecord += count;
+                    if (nextRecord >= 8192) {
+                        nextRecord -= 8192;
+                    }
                 }
-            }
 
-            if (event != null) {
-                event.writeTags(deviceManager.getTagManager(), getTagPrefix());
+                fetch = fetchEventPages(pages, batch);
             }
-        }
 
-        updateTag("EventStatus/NumberOfEvents", eventStatus.getNumberOfEvents());
-        updateTag("EventStatus/FirstRecord", eventStatus.getFirstRecord());
-        updateTag("EventStatus/LastRecord", eventStatus.getLastRecord());
-        updateTag("EventStatus/LastSequenceNumber", eventStatus.getLastSequenceNumber());
+            int newEvents = Math.max(0, diffSequenceNumber);
+            return fetch.thenApplyAsync(event -> {
+                if (event != null) {
+                    event.writeTags(batch, lastEventTags);
+                }
+
+                batch.update(handle("EventStatus/NumberOfEvents"), eventStatus.getNumberOfEvents());
+                batch.update(handle("EventStatus/FirstRecord"), eventStatus.getFirstRecord());
+                batch.update(handle("EventStatus/LastRecord"), eventStatus.getLastRecord());
+                batch.update(handle("EventStatus/LastSequenceNumber"), eventStatus.getLastSequenceNumber());
+                checkpoint.polled(eventStatus.getLastSequenceNumber());
+                return newEvents;
+            }, pollExecutor());
+        }, pollExecutor());
     }
 
-    private String httpGet(String uri) throws Exception {
-        String ret = null;
+    private CompletableFuture<EventParser.Event> fetchEventPages(List<EventPage> pages, TagWriteBatch batch) {
+        int concurrency = Math.max(1, deviceRecord.getEventFetchConcurrency());
+        List<CompletableFuture<EventBatch>> futures = new ArrayList<>(pages.size());
+        for (int i = 0; i < Math.min(concurrency, pages.size()); i++) {
+            futures.add(fetchEventPage(pages.get(i)));
+        }
 
-        URL url = new URL("https://" + deviceRecord.getHostname() + uri);
-        HttpHost targetHost = new HttpHost(url.getHost(), url.getPort(), url.getProtocol());
-        HttpGet httpGet = new HttpGet(url.toURI().toString());
-        CloseableHttpResponse response = httpClient.execute(targetHost, httpGet, context);
-        if (response.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED) {
-            Header authHeader = response.getFirstHeader(AUTH.WWW_AUTH);
-            DigestScheme digestScheme = new DigestScheme();
-            digestScheme.processChallenge(authHeader);
-            authCache.put(targetHost, digestScheme);
-            httpGet.addHeader(digestScheme.authenticate(credsProvider.getCredentials(AuthScope.ANY), httpGet, context));
-            response.close();
-            response = httpClient.execute(targetHost, httpGet, context);
+        // Pages are journaled strictly in ring order, so the poll checkpoint never skips a page that isn't on disk
+        CompletableFuture<EventParser.Event> ret = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < pages.size(); i++) {
+            int index = i;
+            ret = ret.thenComposeAsync(lastEvent -> futures.get(index).thenApplyAsync(page -> {
+                int next = index + concurrency;
+                if (next < pages.size()) {
+                    futures.add(fetchEventPage(pages.get(next)));
+                }
+
+                if (page.isEmpty()) {
+                    return lastEvent;
+                }
+
+                try {
+                    // Without a datasource nothing ever drains the journal, so the events only update tags
+                    if (isDatasourceConfigured()) {
+                        journal.append(page.getEvents());
+                    }
+                    checkConfigurationEvents(page);
+                    applyInputEvents(page, batch);
+                } catch (Exception ex) {
+                    throw new CompletionException(ex);
+                }
+
+                int sequenceNumber = page.getLastEvent().getSequenceNumber();
+                checkpoint.polled(sequenceNumber);
+                batch.update(handle("EventStatus/LastSequenceNumber"), sequenceNumber);
+                return page.getLastEvent();
+            }, pollExecutor()), pollExecutor());
         }
 
-        ret = EntityUtils.toString(response.getEntity());
-        response.close();
+        return ret.whenComplete((event, ex) -> {
+            if (ex != null) {
+                for (CompletableFuture<EventBatch> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<EventBatch> fetchEventPage(EventPage page) {
+        JsonStreamReader pooled = pageReaders.poll();
+        JsonStreamReader reader = pooled == null ? new JsonStreamReader() : pooled;
+        EventBatch pageBatch = new EventBatch();
+
+        // The request itself is returned so cancelling it aborts the fetch
+        CompletableFuture<EventBatch> request = httpGet(String.format("/events?record=%d&count=%d", page.record, page.count), reader, r -> {
+            SERResponseDecoder.readEvents(r, pageBatch);
+            return pageBatch;
+        });
+        request.whenComplete((events, ex) -> {
+            if (ex == null) {
+                metrics.events(pageBatch.size());
+            }
 
+            // A cancelled page may still be decoding, so its reader isn't reused
+            if (!request.isCancelled()) {
+                pageReaders.offer(reader);
+            }
+        });
+        return request;
+    }
+
+    private <T> CompletableFuture<T> httpGet(String uri, JsonStreamReader reader, ResponseDecoder<T> decoder) {
+        URI target = URI.create("https://" + deviceRecord.getHostname() + uri);
+        int maxConnections = Math.max(2, deviceRecord.getEventFetchConcurrency());
+        SERHttpEngine engine = deviceManager.getHttpEngine();
+
+        String requestUri = target.getRawQuery() == null ? target.getRawPath() : target.getRawPath() + "?" + target.getRawQuery();
+        DeviceMetrics.Timer timer = DeviceMetrics.Timer.forPath(uri);
+        long startTime = System.nanoTime();
+
+        // Requests carry credentials preemptively; the extra round trip only happens on the first request or a stale nonce.
+        // Everything after the response headers runs on the poll workers so decoding and storage never hold up the HTTP client's threads.
+        // Cancelling the returned future cancels the request in flight or closes the body being decoded, which frees the host's connection.
+        CompletableFuture<T> ret = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<HttpResponse<SERHttpEngine.ResponseBody>>> request = new AtomicReference<>(engine.get(target, authenticator.authorize("GET", requestUri), maxConnections));
+        request.get().thenComposeAsync(response -> {
+            if (response.statusCode() == HttpStatus.SC_UNAUTHORIZED && authenticator.challenge(response.headers().firstValue(AUTH.WWW_AUTH).orElse(null))) {
+                closeQuietly(response.body());
+                CompletableFuture<HttpResponse<SERHttpEngine.ResponseBody>> retry = engine.get(target, authenticator.authorize("GET", requestUri), maxConnections);
+                request.set(retry);
+                if (ret.isCancelled()) {
+                    cancelRequest(retry);
+                }
+                return retry;
+            }
+            return CompletableFuture.completedFuture(response);
+        }, pollExecutor()).thenApplyAsync(response -> {
+            try {
+                return decode(uri, response, reader, decoder, timer, startTime);
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, pollExecutor()).whenComplete((value, ex) -> {
+            if (ex == null) {
+                ret.complete(value);
+            } else if (ret.completeExceptionally(ex)) {
+                metrics.error();
+            }
+        });
+
+        ret.whenComplete((value, ex) -> {
+            if (ret.isCancelled()) {
+                cancelRequest(request.get());
+            }
+        });
         return ret;
     }
 
+    private static void cancelRequest(CompletableFuture<HttpResponse<SERHttpEngine.ResponseBody>> request) {
+        // Once the headers are in there is nothing left to cancel, so closing the body stops the read instead
+        if (!request.cancel(true)) {
+            request.thenAccept(response -> closeQuietly(response.body()));
+        }
+    }
+
+    private <T> T decode(String uri, HttpResponse<SERHttpEngine.ResponseBody> response, JsonStreamReader reader, ResponseDecoder<T> decoder, DeviceMetrics.Timer timer, long requestStartTime) throws Exception {
+        try (SERHttpEngine.ResponseBody body = response.body()) {
+            int statusCode = response.statusCode();
+            if (statusCode != HttpStatus.SC_OK) {
+                throw new IOException("Unexpected HTTP status " + statusCode + " from " + uri);
+            }
+
+            // The body streams into the decoder, so decode time includes the time to receive it
+            long startTime = System.nanoTime();
+            try {
+                return decoder.decode(reader.reset(body));
+            } finally {
+                reader.reset(null);
+                if (timer != null) {
+                    metrics.record(timer, requestStartTime);
+                }
+                metrics.record(timer == DeviceMetrics.Timer.HttpEvents ? DeviceMetrics.Timer.EventParse : DeviceMetrics.Timer.JsonDecode, startTime);
+                metrics.request(body.getBytesRead());
+            }
+        }
+    }
+
+    private static void closeQuietly(SERHttpEngine.ResponseBody body) {
+        try {
+            body.close();
+        } catch (IOException ex) {
+            // The connection is released regardless
+        }
+    }
+
+    private Executor pollExecutor() {
+        return pollExecutor;
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        while (ex instanceof CompletionException && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        return ex;
+    }
+
+    @FunctionalInterface
+    private interface ResponseDecoder<T> {
+        T decode(JsonStreamReader reader) throws Exception;
+    }
+
     public enum DeviceStatus {
         UNKNOWN("Unknown"), DISABLED("Disabled"), FAULTED("Faulted"), STARTING("Starting"), RUNNING("Running"), DISCONNECTED("Disconnected");
 
@@ -639,8 +1450,29 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
             this.onText = onText;
         }
 
-        public static ChannelConfig fromChannelObj(JSONObject channelObj) throws JSONException {
-            return new ChannelConfig(channelObj.getString("channel"), channelObj.getString("name"), channelObj.getString("offText"), channelObj.getString("onText"));
+        public static ChannelConfig fromReader(JsonStreamReader reader) throws IOException {
+            String channel = null, name = null, offText = null, onText = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                CharSequence key = reader.nextName();
+                if (JsonStreamReader.equals(key, "channel")) {
+                    channel = SERResponseDecoder.readString(reader);
+                } else if (JsonStreamReader.equals(key, "name")) {
+                    name = SERResponseDecoder.readString(reader);
+                } else if (JsonStreamReader.equals(key, "offText")) {
+                    offText = SERResponseDecoder.readString(reader);
+                } else if (JsonStreamReader.equals(key, "onText")) {
+                    onText = SERResponseDecoder.readString(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (channel == null) {
+                throw new IOException("Channel name entry is missing 'channel'");
+            }
+            return new ChannelConfig(channel, name, offText, onText);
         }
 
         public String getChannel() {
@@ -660,6 +1492,36 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
         }
     }
 
+    private static class EventPage {
+        private final int record, count;
+
+        EventPage(int record, int count) {
+            this.record = record;
+            this.count = count;
+        }
+    }
+
+    private static class ChannelTags {
+        private final String channel;
+        private final ChannelConfig defaultConfig;
+        private final TagHandle channelTag, name, secondsUTC, dstActive, value, counter, status;
+        private volatile long eventUpdateTime;
+        // Device time of the last polled state that was published, in epoch milliseconds
+        private volatile long polledStateTime;
+
+        ChannelTags(TagManager tagManager, String channel, String channelTagPath) {
+            this.channel = channel;
+            this.defaultConfig = new ChannelConfig(channel, "", "Off", "On");
+            this.channelTag = tagManager.resolve(channelTagPath + "/Channel");
+            this.name = tagManager.resolve(channelTagPath + "/Name");
+            this.secondsUTC = tagManager.resolve(channelTagPath + "/SecondsUTC");
+            this.dstActive = tagManager.resolve(channelTagPath + "/DSTActive");
+            this.value = tagManager.resolve(channelTagPath + "/Value");
+            this.counter = tagManager.resolve(channelTagPath + "/Counter");
+            this.status = tagManager.resolve(channelTagPath + "/Status");
+        }
+    }
+
     public static class EventStatus {
         private Integer numberOfEvents, firstRecord, lastRecord, lastSequenceNumber;
 
@@ -670,8 +1532,29 @@ public class SERDevice implements IRecordListener<DatasourceRecord> {
             this.lastSequenceNumber = lastSequenceNumber;
         }
 
-        public static EventStatus fromEventObj(JSONObject channelObj) throws JSONException {
-            return new EventStatus(channelObj.getInt("NumberOfEvents"), channelObj.getInt("FirstRecord"), channelObj.getInt("LastRecord"), channelObj.getInt("LastSequenceNumber"));
+        public static EventStatus fromReader(JsonStreamReader reader) throws IOException {
+            Integer numberOfEvents = null, firstRecord = null, lastRecord = null, lastSequenceNumber = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                CharSequence key = reader.nextName();
+                if (JsonStreamReader.equals(key, "NumberOfEvents")) {
+                    numberOfEvents = reader.nextInt();
+                } else if (JsonStreamReader.equals(key, "FirstRecord")) {
+                    firstRecord = reader.nextInt();
+                } else if (JsonStreamReader.equals(key, "LastRecord")) {
+                    lastRecord = reader.nextInt();
+                } else if (JsonStreamReader.equals(key, "LastSequenceNumber")) {
+                    lastSequenceNumber = reader.nextInt();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (numberOfEvents == null || firstRecord == null || lastRecord == null || lastSequenceNumber == null) {
+                throw new IOException("Incomplete event status response");
+            }
+            return new EventStatus(numberOfEvents, firstRecord, lastRecord, lastSequenceNumber);
         }
 
         public Integer getNumberOfEvents() {
@@ -1,6 +1,7 @@
 package org.imdc.cybersciences.ser;
 
 import com.inductiveautomation.ignition.common.sqltags.model.types.DataType;
+import com.inductiveautomation.ignition.common.tags.config.CollisionPolicy;
 import com.inductiveautomation.ignition.gateway.localdb.persistence.IRecordListener;
 import com.inductiveautomation.ignition.gateway.model.GatewayContext;
 import com.inductiveautomation.ignition.gateway.web.models.KeyValue;
@@ -8,8 +9,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import simpleorm.dataset.SQuery;
 
+import java.io.File;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
@@ -21,11 +26,17 @@ public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
 
     private Map<Long, String> deviceIdMap;
     private Map<String, SERDevice> deviceConfigurations;
+    private SERHttpEngine httpEngine;
+    private PollScheduler pollScheduler;
+    private Map<String, EventWriter> eventWriters;
 
     public SERDeviceManager() {
         deviceIdMap = new ConcurrentHashMap<>();
         deviceConfigurations = new ConcurrentHashMap<>();
         tagManager = new TagManager();
+        httpEngine = new SERHttpEngine();
+        pollScheduler = new PollScheduler();
+        eventWriters = new ConcurrentHashMap<>();
     }
 
     public static SERDeviceManager get() {
@@ -44,6 +55,14 @@ public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
         logger.debug("Starting up");
         SERDeviceRecord.META.addRecordListener(this);
         tagManager.startup();
+
+        try {
+            httpEngine.startup();
+        } catch (Throwable t) {
+            logger.error("Error starting HTTP engine", t);
+        }
+        pollScheduler.startup();
+
         init();
     }
 
@@ -59,6 +78,14 @@ public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
                 logger.error("Error initializing manager", t);
             }
         }
+
+        pollScheduler.shutdown();
+        httpEngine.shutdown();
+
+        for (EventWriter writer : eventWriters.values()) {
+            writer.shutdown();
+        }
+        eventWriters.clear();
     }
 
     private void init() {
@@ -76,16 +103,45 @@ public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
     }
 
     private void registerUDTs() throws Exception {
+        // Definitions are merged on every startup so members added by module upgrades reach existing installs
         TagBuilder builder = TagBuilder.createUDTDefinition("Status");
         builder.addMember("Channel/LastExecution", DataType.DateTime);
         builder.addMember("Channel/NextExecution", DataType.DateTime);
         builder.addMember("Channel/LastExecutionDuration", DataType.Int8);
+        builder.addMember("Channel/Lateness", DataType.Int8);
+        builder.addMember("Channel/Overruns", DataType.Int8);
+        builder.addMember("Channel/SkippedTicks", DataType.Int8);
         builder.addMember("Event/LastExecution", DataType.DateTime);
         builder.addMember("Event/NextExecution", DataType.DateTime);
         builder.addMember("Event/LastExecutionDuration", DataType.Int8);
+        builder.addMember("Event/PollInterval", DataType.Int8);
+        builder.addMember("Event/Lateness", DataType.Int8);
+        builder.addMember("Event/Overruns", DataType.Int8);
+        builder.addMember("Event/SkippedTicks", DataType.Int8);
+        builder.addMember("Event/JournalPending", DataType.Int8);
+        builder.addMember("Auth/Challenges", DataType.Int8);
+        builder.addMember("Auth/StaleNonces", DataType.Int8);
+        builder.addMember("Prune/LastExecution", DataType.DateTime);
+        builder.addMember("Prune/LastExecutionDuration", DataType.Int8);
+        builder.addMember("Prune/Deleted", DataType.Int8);
+        builder.addMember("Prune/Backlog", DataType.Int8);
+        builder.addMember("Prune/DroppedPartitions", DataType.Int4);
+        for (DeviceMetrics.Timer timer : DeviceMetrics.Timer.TIMERS) {
+            builder.addMember("Metrics/" + timer.name() + "/Count", DataType.Int8);
+            builder.addMember("Metrics/" + timer.name() + "/P50", DataType.Float8);
+            builder.addMember("Metrics/" + timer.name() + "/P95", DataType.Float8);
+            builder.addMember("Metrics/" + timer.name() + "/P99", DataType.Float8);
+            builder.addMember("Metrics/" + timer.name() + "/Max", DataType.Float8);
+        }
+        builder.addMember("Metrics/Requests", DataType.Int8);
+        builder.addMember("Metrics/Errors", DataType.Int8);
+        builder.addMember("Metrics/Bytes", DataType.Int8);
+        builder.addMember("Metrics/Events", DataType.Int8);
+        builder.addMember("Metrics/EventsPerSecond", DataType.Float8);
+        builder.addMember("Metrics/BytesPerSecond", DataType.Float8);
         builder.addMember("Status", DataType.String);
         builder.addMember("DatabaseStatus", DataType.String);
-        getTagManager().registerUDT(builder.build());
+        getTagManager().registerUDT(builder.build(), CollisionPolicy.MergeOverwrite);
 
         builder = TagBuilder.createUDTDefinition("Diagnostics");
         builder.addMember("Mac1", DataType.String);
@@ -115,7 +171,7 @@ public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
         builder.addMember("TimeSourceSetup", DataType.Int4);
         builder.addMember("Slot1", DataType.Int4);
         builder.addMember("Slot2", DataType.Int4);
-        getTagManager().registerUDT(builder.build());
+        getTagManager().registerUDT(builder.build(), CollisionPolicy.MergeOverwrite);
 
         builder = TagBuilder.createUDTDefinition("Channel");
         builder.addMember("Channel", DataType.String);
@@ -125,7 +181,7 @@ public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
         builder.addMember("Value", DataType.Boolean);
         builder.addMember("Counter", DataType.Int8);
         builder.addMember("Status", DataType.String);
-        getTagManager().registerUDT(builder.build());
+        getTagManager().registerUDT(builder.build(), CollisionPolicy.MergeOverwrite);
 
         builder = TagBuilder.createUDTDefinition("Event");
         builder.addMember("SequenceNumber", DataType.Int4);
@@ -136,14 +192,14 @@ public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
         builder.addMember("Timestamp", DataType.Int8);
         builder.addMember("DST", DataType.String);
         builder.addMember("TimeQuality", DataType.String);
-        getTagManager().registerUDT(builder.build());
+        getTagManager().registerUDT(builder.build(), CollisionPolicy.MergeOverwrite);
 
         builder = TagBuilder.createUDTDefinition("EventStatus");
         builder.addMember("NumberOfEvents", DataType.Int4);
         builder.addMember("FirstRecord", DataType.Int4);
         builder.addMember("LastRecord", DataType.Int4);
         builder.addMember("LastSequenceNumber", DataType.Int4);
-        getTagManager().registerUDT(builder.build());
+        getTagManager().registerUDT(builder.build(), CollisionPolicy.MergeOverwrite);
     }
 
     private void deviceAddAndStartup(SERDeviceRecord deviceRecord) {
@@ -181,6 +237,7 @@ public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
         }
 
         deviceAddAndStartup(deviceRecord);
+        removeUnusedEventWriters();
     }
 
     @Override
@@ -196,12 +253,13 @@ public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
 
         if (deviceIdMap.containsKey(id)) {
             try {
-                SERDevice device = deviceConfigurations.get(deviceIdMap.get(id));
+                SERDevice device = deviceConfigurations.remove(deviceIdMap.remove(id));
                 device.shutdown();
             } catch (Throwable ex) {
                 logger.error("Error shutting down old instance", ex);
             }
         }
+        removeUnusedEventWriters();
     }
 
     public GatewayContext getGatewayContext() {
@@ -212,6 +270,73 @@ public class SERDeviceManager implements IRecordListener<SERDeviceRecord> {
         return tagManager;
     }
 
+    public File getCheckpointDir() {
+        return new File(gatewayContext.getSystemManager().getDataDir(), "cybersciences-ser/checkpoints");
+    }
+
+    public File getJournalDir() {
+        return new File(gatewayContext.getSystemManager().getDataDir(), "cybersciences-ser/journal");
+    }
+
+    public PollScheduler getPollScheduler() {
+        return pollScheduler;
+    }
+
+    public EventWriter getEventWriter(String datasource) {
+        return eventWriters.computeIfAbsent(datasource, ds -> {
+            EventWriter writer = new EventWriter(gatewayContext, ds);
+            writer.startup();
+            return writer;
+        });
+    }
+
+    public void removeEventWriter(String datasource) {
+        EventWriter writer = datasource == null ? null : eventWriters.remove(datasource);
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    /**
+     * Shuts down the writers of datasources no running device stores events to anymore.
+     */
+    private void removeUnusedEventWriters() {
+        Set<String> used = new HashSet<>();
+        for (SERDevice device : deviceConfigurations.values()) {
+            used.add(device.getDatasource());
+        }
+
+        for (String datasource : eventWriters.keySet()) {
+            if (!used.contains(datasource)) {
+                removeEventWriter(datasource);
+            }
+        }
+    }
+
+    /**
+     * Returns the longest retention in days among the devices storing events to the table, or -1 if any of them keeps events forever.
+     * Tables are shared, so pruning must not remove rows another device still wants to keep.
+     */
+    public int getTableRetentionDays(Long datasourceId, String tableName) {
+        int ret = -1;
+        SQuery<SERDeviceRecord> query = new SQuery<>(SERDeviceRecord.META);
+        for (SERDeviceRecord record : gatewayContext.getPersistenceInterface().query(query)) {
+            if (!Objects.equals(record.getDatasourceId(), datasourceId) || !tableName.equalsIgnoreCase(record.getTableName())) {
+                continue;
+            }
+
+            if (!record.isPruneEnabled() || record.getRetentionDays() <= 0) {
+                return -1;
+            }
+            ret = Math.max(ret, record.getRetentionDays());
+        }
+        return ret;
+    }
+
+    public SERHttpEngine getHttpEngine() {
+        return httpEngine;
+    }
+
     public SERDevice getDeviceById(long id) throws Exception {
         if (deviceIdMap.containsKey(id)) {
             return deviceConfigurations.get(deviceIdMap.get(id));
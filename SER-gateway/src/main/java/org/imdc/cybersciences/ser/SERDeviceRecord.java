@@ -19,12 +19,21 @@ public class SERDeviceRecord extends PersistentRecord {
     public static final EncodedStringField Password = new EncodedStringField(META, "Password", SFieldFlags.SMANDATORY);
     public static final IntField ChannelPollRate = new IntField(META, "ChannelPollRate", SFieldFlags.SMANDATORY).setDefault(5000);
     public static final IntField EventPollRate = new IntField(META, "EventPollRate", SFieldFlags.SMANDATORY).setDefault(10000);
+    public static final IntField DiagPollRate = new IntField(META, "DiagPollRate", SFieldFlags.SMANDATORY).setDefault(300000);
+    public static final IntField EventFetchConcurrency = new IntField(META, "EventFetchConcurrency", SFieldFlags.SMANDATORY).setDefault(1);
+    public static final BooleanField AdaptiveEventPolling = new BooleanField(META, "AdaptiveEventPolling").setDefault(false);
+    public static final IntField EventPollRateMin = new IntField(META, "EventPollRateMin", SFieldFlags.SMANDATORY).setDefault(500);
+    public static final IntField EventPollRateMax = new IntField(META, "EventPollRateMax", SFieldFlags.SMANDATORY).setDefault(30000);
+    public static final EnumField<PollScheduler.OverrunPolicy> PollOverrunPolicy = new EnumField<>(META, "PollOverrunPolicy", PollScheduler.OverrunPolicy.class, SFieldFlags.SMANDATORY).setDefault(PollScheduler.OverrunPolicy.Coalesce);
     public static final BooleanField Enabled = new BooleanField(META, "Enabled").setDefault(true);
     public static final LongField DatasourceId = new LongField(META, "DatasourceId");
     public static final ReferenceField<DatasourceRecord> Datasource =
             new ReferenceField<DatasourceRecord>(META, DatasourceRecord.META, "Datasource", DatasourceId);
 
+    public static final EnumField<EventPartitions.Mode> PartitionMode = new EnumField<>(META, "PartitionMode", EventPartitions.Mode.class, SFieldFlags.SMANDATORY).setDefault(EventPartitions.Mode.Single);
+    public static final IntField EventJournalCapacity = new IntField(META, "EventJournalCapacity", SFieldFlags.SMANDATORY).setDefault(65536);
     public static final BooleanField AutoCreate = new BooleanField(META, "AutoCreate").setDefault(true);
+    public static final BooleanField CompactSchema = new BooleanField(META, "CompactSchema").setDefault(false);
     public static final BooleanField PruneEnabled = new BooleanField(META, "PruneEnabled").setDefault(false);
     public static final IntField RetentionDays = new IntField(META, "RetentionDays", SFieldFlags.SMANDATORY).setDefault(90);
     public static final StringField TableName = new StringField(META, "TableName",
@@ -39,6 +48,8 @@ public class SERDeviceRecord extends PersistentRecord {
             SFieldFlags.SMANDATORY).setDefault("EVENT_CODE");
     public static final StringField EventTypeColumn = new StringField(META, "EventTypeColumn",
             SFieldFlags.SMANDATORY).setDefault("EVENT_TYPE");
+    public static final StringField DeviceColumn = new StringField(META, "DeviceColumn",
+            SFieldFlags.SMANDATORY).setDefault("DEVICE");
     public static final StringField ChannelColumn = new StringField(META, "ChannelColumn",
             SFieldFlags.SMANDATORY).setDefault("CHANNEL");
     public static final StringField StatusColumn = new StringField(META, "StatusColumn",
@@ -49,9 +60,11 @@ public class SERDeviceRecord extends PersistentRecord {
     public static final StringField TimeQualityColumn = new StringField(META, "TimeQualityColumn",
             SFieldFlags.SMANDATORY).setDefault("TIME_QUALITY");
 
-    public static final Category ConnectionCategory = new Category("SERDeviceRecord.Category.Connection", 125).include(Name, Hostname, Username, Password, ChannelPollRate, EventPollRate, Enabled);
+    public static final Category ConnectionCategory = new Category("SERDeviceRecord.Category.Connection", 125).include(Name, Hostname, Username, Password, ChannelPollRate, EventPollRate, DiagPollRate, EventFetchConcurrency, Enabled);
 
-    public static final Category DatasourceCategory = new Category("SERDeviceRecord.Category.Datasource", 126).include(Datasource, AutoCreate, PruneEnabled, RetentionDays, TableName, KeyColumn, SequenceNumberColumn, TimestampColumn, EventCodeColumn, EventTypeColumn, ChannelColumn, StatusColumn, CoincidentStatusColumn, TimestampColumn, TimeQualityColumn);
+    public static final Category PollingCategory = new Category("SERDeviceRecord.Category.Polling", 127).include(AdaptiveEventPolling, EventPollRateMin, EventPollRateMax, PollOverrunPolicy);
+
+    public static final Category DatasourceCategory = new Category("SERDeviceRecord.Category.Datasource", 126).include(Datasource, EventJournalCapacity, AutoCreate, PruneEnabled, RetentionDays, TableName, PartitionMode, CompactSchema, KeyColumn, DeviceColumn, SequenceNumberColumn, TimestampColumn, EventCodeColumn, EventTypeColumn, ChannelColumn, StatusColumn, CoincidentStatusColumn, TimestampColumn, TimeQualityColumn);
 
     static {
         Password.getFormMeta().setEditorSource(PasswordEditorSource.getSharedInstance());
@@ -94,6 +107,30 @@ public class SERDeviceRecord extends PersistentRecord {
         return getInt(EventPollRate);
     }
 
+    public Integer getDiagPollRate() {
+        return getInt(DiagPollRate);
+    }
+
+    public Integer getEventFetchConcurrency() {
+        return getInt(EventFetchConcurrency);
+    }
+
+    public Boolean isAdaptiveEventPolling() {
+        return getBoolean(AdaptiveEventPolling);
+    }
+
+    public Integer getEventPollRateMin() {
+        return getInt(EventPollRateMin);
+    }
+
+    public Integer getEventPollRateMax() {
+        return getInt(EventPollRateMax);
+    }
+
+    public PollScheduler.OverrunPolicy getPollOverrunPolicy() {
+        return getEnum(PollOverrunPolicy);
+    }
+
     public Long getDatasourceId() {
         return getLong(DatasourceId);
     }
@@ -110,6 +147,18 @@ public class SERDeviceRecord extends PersistentRecord {
         return getInt(RetentionDays);
     }
 
+    public Integer getEventJournalCapacity() {
+        return getInt(EventJournalCapacity);
+    }
+
+    public EventPartitions.Mode getPartitionMode() {
+        return getEnum(PartitionMode);
+    }
+
+    public Boolean isCompactSchema() {
+        return getBoolean(CompactSchema);
+    }
+
     public String getTableName() {
         return getString(TableName);
     }
@@ -134,6 +183,10 @@ public class SERDeviceRecord extends PersistentRecord {
         return getString(EventTypeColumn);
     }
 
+    public String getDeviceColumn() {
+        return getString(DeviceColumn);
+    }
+
     public String getChannelColumn() {
         return getString(ChannelColumn);
     }
@@ -0,0 +1,335 @@
+package org.imdc.cybersciences.ser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SERHttpEngine {
+    private static final Logger logger = LoggerFactory.getLogger("SER.Http.Engine");
+    private static final int IO_THREADS = 4;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration BODY_IDLE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Map<String, HostLimiter> hostLimiters;
+    private final Duration bodyIdleTimeout;
+    private ExecutorService executor;
+    private ScheduledExecutorService timer;
+    private HttpClient httpClient;
+
+    public SERHttpEngine() {
+        this(BODY_IDLE_TIMEOUT);
+    }
+
+    SERHttpEngine(Duration bodyIdleTimeout) {
+        this.hostLimiters = new ConcurrentHashMap<>();
+        this.bodyIdleTimeout = bodyIdleTimeout;
+    }
+
+    public void startup() throws Exception {
+        logger.debug("Starting up");
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(IO_THREADS, r -> {
+            Thread t = new Thread(r, "SER-Http-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SER-Http-Timer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[]{new TrustAllManager()}, null);
+
+        httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .sslContext(sslContext)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    public void shutdown() {
+        logger.debug("Shutting down");
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+
+        httpClient = null;
+        hostLimiters.clear();
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sends a GET and completes once the response headers arrive. The body is streamed; it holds one of the host's connections until it
+     * is closed, so callers must always close it. The request timeout only covers the headers, so the body is closed if no data arrives
+     * for the idle timeout and a blocked read fails with an {@link HttpTimeoutException}. Cancelling the returned future abandons the
+     * request whether it is still waiting for a connection or already in flight.
+     */
+    public CompletableFuture<HttpResponse<ResponseBody>> get(URI uri, String authorization, int maxConnections) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET();
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        }
+        HttpRequest request = builder.build();
+
+        CompletableFuture<HttpResponse<ResponseBody>> ret = new CompletableFuture<>();
+        HostLimiter limiter = hostLimiters.computeIfAbsent(uri.getAuthority(), k -> new HostLimiter());
+        limiter.submit(maxConnections, () -> {
+            HttpClient client = httpClient;
+            ScheduledExecutorService idleTimer = timer;
+            if (client == null) {
+                limiter.release();
+                ret.completeExceptionally(new IllegalStateException("HTTP engine is shut down"));
+                return;
+            }
+
+            if (ret.isDone()) {
+                // Cancelled while waiting for a connection
+                limiter.release();
+                return;
+            }
+
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    limiter.release();
+                }
+            };
+
+            HttpResponse.BodyHandler<ResponseBody> handler = info -> HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(), in -> new ResponseBody(in, release, idleTimer, bodyIdleTimeout));
+            CompletableFuture<HttpResponse<ResponseBody>> send = client.sendAsync(request, handler);
+            send.whenComplete((response, ex) -> {
+                if (ex != null) {
+                    release.run();
+                    ret.completeExceptionally(ex);
+                } else if (!ret.complete(response)) {
+                    // Cancelled while the request was in flight
+                    try {
+                        response.body().close();
+                    } catch (IOException e) {
+                        // Connection is released regardless
+                    }
+                }
+            });
+            ret.whenComplete((response, ex) -> {
+                if (ret.isCancelled()) {
+                    send.cancel(true);
+                }
+            });
+        });
+        return ret;
+    }
+
+    /**
+     * A streamed response body that counts the bytes read and gives the host's connection back when it is closed. A watchdog on the
+     * engine's timer closes it once nothing has been read for the idle timeout, which wakes any read blocked on a stalled device.
+     */
+    public static class ResponseBody extends FilterInputStream {
+        private final Runnable release;
+        private final ScheduledExecutorService timer;
+        private final Duration idleTimeout;
+        private volatile long lastActivity;
+        private volatile boolean closed, timedOut;
+        private volatile ScheduledFuture<?> watchdog;
+        private long bytesRead;
+
+        ResponseBody(InputStream in, Runnable release, ScheduledExecutorService timer, Duration idleTimeout) {
+            super(in);
+            this.release = release;
+            this.timer = timer;
+            this.idleTimeout = idleTimeout;
+            this.lastActivity = System.nanoTime();
+            watch(idleTimeout.toNanos());
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b;
+            try {
+                b = super.read();
+            } catch (IOException ex) {
+                throw timedOut ? timeoutException() : ex;
+            }
+
+            if (b >= 0) {
+                bytesRead++;
+                lastActivity = System.nanoTime();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n;
+            try {
+                n = super.read(b, off, len);
+            } catch (IOException ex) {
+                throw timedOut ? timeoutException() : ex;
+            }
+
+            if (n > 0) {
+                bytesRead += n;
+                lastActivity = System.nanoTime();
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+
+            ScheduledFuture<?> future = watchdog;
+            if (future != null) {
+                future.cancel(false);
+            }
+
+            try {
+                super.close();
+            } finally {
+                release.run();
+            }
+        }
+
+        private void watch(long delayNanos) {
+            if (timer == null || closed) {
+                return;
+            }
+
+            try {
+                watchdog = timer.schedule(this::checkIdle, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException ex) {
+                // Engine is shutting down
+            }
+        }
+
+        private void checkIdle() {
+            if (closed) {
+                return;
+            }
+
+            long idle = System.nanoTime() - lastActivity;
+            if (idle < idleTimeout.toNanos()) {
+                watch(idleTimeout.toNanos() - idle);
+                return;
+            }
+
+            timedOut = true;
+            try {
+                close();
+            } catch (IOException ex) {
+                // Connection is released regardless
+            }
+        }
+
+        private HttpTimeoutException timeoutException() {
+            return new HttpTimeoutException("No response data received for " + idleTimeout.toMillis() + " ms");
+        }
+    }
+
+    private static class HostLimiter {
+        private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+        private int active;
+
+        void submit(int maxConnections, Runnable task) {
+            synchronized (this) {
+                if (active >= Math.max(1, maxConnections)) {
+                    pending.add(task);
+                    return;
+                }
+                active++;
+            }
+            task.run();
+        }
+
+        void release() {
+            Runnable next;
+            synchronized (this) {
+                next = pending.poll();
+                if (next == null) {
+                    active--;
+                }
+            }
+
+            if (next != null) {
+                next.run();
+            }
+        }
+    }
+
+    private static class TrustAllManager extends X509ExtendedTrustManager {
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.imdc.cybersciences.ser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SERResponseDecoder {
+    public static void readDiag(JsonStreamReader reader, DiagHandler handler) throws Exception {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            DiagField field = DiagField.forKey(reader.nextName());
+            if (field == null) {
+                reader.skipValue();
+            } else {
+                handler.onField(field, field.read(reader));
+            }
+        }
+        reader.endObject();
+    }
+
+    public static List<SERDevice.ChannelConfig> readChannelNames(JsonStreamReader reader) throws IOException {
+        List<SERDevice.ChannelConfig> ret = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (JsonStreamReader.equals(reader.nextName(), "channels_name_ext")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    ret.add(SERDevice.ChannelConfig.fromReader(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return ret;
+    }
+
+    public static long readChannelStatus(JsonStreamReader reader) throws IOException {
+        long ret = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (JsonStreamReader.equals(reader.nextName(), "status")) {
+                ret = reader.nextLong();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return ret;
+    }
+
+    public static void readChannelData(JsonStreamReader reader, ChannelDataHandler handler) throws Exception {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!JsonStreamReader.equals(reader.nextName(), "channels_data")) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginArray();
+            for (int i = 0; reader.hasNext(); i++) {
+                long secondsUTC = 0;
+                boolean dstActive = false;
+                int value = 0;
+
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    CharSequence name = reader.nextName();
+                    if (JsonStreamReader.equals(name, "secondsUTC")) {
+                        secondsUTC = reader.nextLong();
+                    } else if (JsonStreamReader.equals(name, "dst_active")) {
+                        dstActive = reader.nextInt() != 0;
+                    } else if (JsonStreamReader.equals(name, "value")) {
+                        value = reader.nextInt();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+
+                handler.onChannel(i, secondsUTC, dstActive, value);
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+    }
+
+    public static EventParser.Event readEvents(JsonStreamReader reader, EventBatch eventBatch) throws IOException {
+        EventParser.Event event = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!JsonStreamReader.equals(reader.nextName(), "events")) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (JsonStreamReader.equals(reader.nextName(), "r")) {
+                        event = EventParser.parse(reader.nextString());
+                        eventBatch.add(event);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return event;
+    }
+
+    public static String readString(JsonStreamReader reader) throws IOException {
+        CharSequence value = reader.nextString();
+        return value == null ? null : value.toString();
+    }
+
+    public enum FieldType {
+        STRING, INT, LONG, FLAG
+    }
+
+    public enum DiagField {
+        Mac1("mac1", FieldType.STRING),
+        Mac2("mac2", FieldType.STRING),
+        Eport("eport", FieldType.STRING),
+        Model("model", FieldType.STRING),
+        DeviceName("device_name", FieldType.STRING),
+        DeviceId("device_ID", FieldType.STRING),
+        CatalogNumber("catalog_number", FieldType.STRING),
+        DOM("dom", FieldType.STRING),
+        SerialNumber("serial_number", FieldType.STRING),
+        HardwareVersion("hardware_version", FieldType.STRING),
+        FirmwareVersion("firmware_version", FieldType.STRING),
+        Build("build", FieldType.INT),
+        CFM0Version("cfm0_version", FieldType.STRING),
+        CFM1Version("cfm1_version", FieldType.STRING),
+        UFMVersion("ufm_version", FieldType.STRING),
+        PCMVersion("pcm_version", FieldType.STRING),
+        StorageTotal("storage_total", FieldType.LONG),
+        StorageFree("storage_free", FieldType.LONG),
+        StorageScale("storage_scale", FieldType.LONG),
+        SecondsUTC("secondsUTC", FieldType.LONG),
+        DSTActive("dst_active", FieldType.FLAG),
+        TimeZoneOffset("time_zone_offset", FieldType.INT),
+        AltDateFormat("alt_date_format", FieldType.INT),
+        AltTimeFormat("alt_time_format", FieldType.INT),
+        TimeSourceSetup("time_source_setup", FieldType.INT),
+        Slot1("slot1", FieldType.INT),
+        Slot2("slot2", FieldType.INT);
+
+        static final DiagField[] FIELDS = values();
+
+        private final String key;
+        private final FieldType type;
+
+        DiagField(String key, FieldType type) {
+            this.key = key;
+            this.type = type;
+        }
+
+        static DiagField forKey(CharSequence key) {
+            for (DiagField field : FIELDS) {
+                if (JsonStreamReader.equals(key, field.key)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public FieldType getType() {
+            return type;
+        }
+
+        Object read(JsonStreamReader reader) throws IOException {
+            switch (type) {
+                case INT:
+                    return reader.nextInt();
+                case LONG:
+                    return reader.nextLong();
+                case FLAG:
+                    return reader.nextInt() != 0;
+                default:
+                    return readString(reader);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface DiagHandler {
+        void onField(DiagField field, Object value) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface ChannelDataHandler {
+        void onChannel(int index, long secondsUTC, boolean dstActive, int value) throws Exception;
+    }
+}
@@ -0,0 +1,49 @@
+package org.imdc.cybersciences.ser;
+
+import com.inductiveautomation.ignition.common.tags.model.TagPath;
+import com.inductiveautomation.ignition.common.tags.paths.parser.TagPathParser;
+
+import java.io.IOException;
+
+public class TagHandle {
+    private final String tagPath;
+    private volatile TagPath parsedPath;
+
+    TagHandle(String tagPath) {
+        this.tagPath = tagPath;
+    }
+
+    public String getTagPath() {
+        return tagPath;
+    }
+
+    public TagPath getParsedPath() throws IOException {
+        TagPath ret = parsedPath;
+        if (ret == null) {
+            ret = TagPathParser.parse(tagPath);
+            parsedPath = ret;
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TagHandle)) {
+            return false;
+        }
+        return tagPath.equals(((TagHandle) o).tagPath);
+    }
+
+    @Override
+    public int hashCode() {
+        return tagPath.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return tagPath;
+    }
+}
@@ -1,5 +1,7 @@
 package org.imdc.cybersciences.ser;
 
+import com.inductiveautomation.ignition.common.browsing.BrowseFilter;
+import com.inductiveautomation.ignition.common.browsing.Results;
 import com.inductiveautomation.ignition.common.config.BasicBoundPropertySet;
 import com.inductiveautomation.ignition.common.config.BoundPropertySet;
 import com.inductiveautomation.ignition.common.model.values.BasicQualifiedValue;
@@ -9,10 +11,12 @@ import com.inductiveautomation.ignition.common.sqltags.model.TagProviderMeta;
 import com.inductiveautomation.ignition.common.sqltags.model.types.DataType;
 import com.inductiveautomation.ignition.common.tags.config.CollisionPolicy;
 import com.inductiveautomation.ignition.common.tags.config.TagConfiguration;
+import com.inductiveautomation.ignition.common.tags.browsing.NodeDescription;
 import com.inductiveautomation.ignition.common.tags.config.properties.WellKnownTagProps;
 import com.inductiveautomation.ignition.common.tags.model.SecurityContext;
 import com.inductiveautomation.ignition.common.tags.model.TagPath;
 import com.inductiveautomation.ignition.common.tags.model.TagProvider;
+import com.inductiveautomation.ignition.common.tags.model.event.TagStructureListener;
 import com.inductiveautomation.ignition.common.tags.paths.parser.TagPathParser;
 import com.inductiveautomation.ignition.gateway.model.GatewayContext;
 import com.inductiveautomation.ignition.gateway.tags.managed.ManagedTagProvider;
@@ -23,16 +27,38 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class TagManager {
     private final Logger logger = LoggerFactory.getLogger("SER.Tag.Manager");
     public static final String PROVIDER_NAME = "CyberSciencesSER";
+    private static final String PROVIDER_PREFIX = String.format("[%s]", PROVIDER_NAME);
+    private static final String TYPES_PATH = PROVIDER_PREFIX + "_types_";
+    private static final long TAG_INDEX_REBUILD_DELAY = 5000;
+    private static final long TAG_INDEX_BROWSE_TIMEOUT = 30000;
 
     private GatewayContext gatewayContext;
     private ManagedTagProvider managedTagProvider;
     private TagProvider tagProvider;
+    private final Map<String, PublishedValue> publishedValues = new ConcurrentHashMap<>();
+    private volatile Set<String> tagIndex = ConcurrentHashMap.newKeySet();
+    private volatile boolean tagIndexComplete = false;
+    private final AtomicBoolean tagIndexRebuildPending = new AtomicBoolean(false);
+    private final Object tagIndexLock = new Object();
+    // Changes made while a rebuild is browsing, replayed onto the new index before it replaces the live one
+    private List<Consumer<Set<String>>> tagIndexChanges;
+    private TagPath rootPath;
+    private TagStructureListener structureListener;
 
     public void init(GatewayContext gatewayContext) {
         this.gatewayContext = gatewayContext;
@@ -42,17 +68,118 @@ public class TagManager {
         logger.debug("Starting up");
         managedTagProvider = gatewayContext.getTagManager().getOrCreateManagedProvider(new ProviderConfiguration(PROVIDER_NAME).setAllowTagCustomization(true).setPersistTags(true).setPersistValues(true).setAllowTagDeletion(true).setHasDataTypes(true).setAttribute(TagProviderMeta.FLAG_HAS_OPCBROWSE, false));
         tagProvider = gatewayContext.getTagManager().getTagProvider(PROVIDER_NAME);
+        publishedValues.clear();
+
+        rebuildTagIndex();
+
+        try {
+            rootPath = TagPathParser.parse(PROVIDER_PREFIX);
+            // Deleted or recreated tags don't keep the values published to them, so every value has to be written again
+            structureListener = event -> {
+                publishedValues.clear();
+                scheduleTagIndexRebuild();
+            };
+            gatewayContext.getTagManager().addTagStructureListener(rootPath, structureListener);
+        } catch (Throwable ex) {
+            logger.error("Error registering tag structure listener", ex);
+        }
     }
 
     public void shutdown() {
         logger.debug("Shutting down");
+
+        try {
+            if (structureListener != null) {
+                gatewayContext.getTagManager().removeTagStructureListener(rootPath, structureListener);
+            }
+        } catch (Throwable ex) {
+            logger.error("Error removing tag structure listener", ex);
+        }
+
         managedTagProvider.shutdown(false);
     }
 
+    private static String indexKey(String tagPath) {
+        return tagPath.toLowerCase(Locale.ROOT);
+    }
+
+    private void scheduleTagIndexRebuild() {
+        if (tagIndexRebuildPending.compareAndSet(false, true)) {
+            gatewayContext.getExecutionManager().executeOnce(() -> {
+                tagIndexRebuildPending.set(false);
+                rebuildTagIndex();
+            }, TAG_INDEX_REBUILD_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void rebuildTagIndex() {
+        long start = System.currentTimeMillis();
+        Set<String> index = ConcurrentHashMap.newKeySet();
+        synchronized (tagIndexLock) {
+            tagIndexChanges = new ArrayList<>();
+        }
+
+        try {
+            indexTags(TagPathParser.parse(PROVIDER_PREFIX), index);
+            indexTags(TagPathParser.parse(TYPES_PATH), index);
+            synchronized (tagIndexLock) {
+                for (Consumer<Set<String>> change : tagIndexChanges) {
+                    change.accept(index);
+                }
+                tagIndex = index;
+                tagIndexComplete = true;
+            }
+            logger.debug("Indexed " + index.size() + " tags in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (Throwable ex) {
+            tagIndexComplete = false;
+            logger.error("Error indexing tags, falling back to provider reads", ex);
+        } finally {
+            synchronized (tagIndexLock) {
+                tagIndexChanges = null;
+            }
+        }
+    }
+
+    private void indexTags(TagPath path, Set<String> index) throws Exception {
+        Results<NodeDescription> results = tagProvider.browseAsync(path, new BrowseFilter()).get(TAG_INDEX_BROWSE_TIMEOUT, TimeUnit.MILLISECONDS);
+        if (results.getResults() == null) {
+            return;
+        }
+
+        for (NodeDescription node : results.getResults()) {
+            TagPath nodePath = node.getFullPath();
+            if (index.add(indexKey(nodePath.toStringFull())) && node.hasChildren()) {
+                indexTags(nodePath, index);
+            }
+        }
+    }
+
+    private void indexAdd(String tagPath) {
+        String key = indexKey(tagPath);
+        indexChange(index -> index.add(key));
+    }
+
+    private void indexRemove(String tagPath) {
+        String key = indexKey(tagPath);
+        String childPrefix = key + "/";
+        indexChange(index -> {
+            index.remove(key);
+            index.removeIf(path -> path.startsWith(childPrefix));
+        });
+    }
+
+    private void indexChange(Consumer<Set<String>> change) {
+        synchronized (tagIndexLock) {
+            change.accept(tagIndex);
+            if (tagIndexChanges != null) {
+                tagIndexChanges.add(change);
+            }
+        }
+    }
+
     public static String fixTagPath(String tagPath) {
-        String tagProvider = String.format("[%s]", TagManager.PROVIDER_NAME);
-        if (!tagPath.startsWith(tagProvider)) {
-            tagPath = tagProvider + tagPath;
+        if (!tagPath.startsWith(PROVIDER_PREFIX)) {
+            tagPath = PROVIDER_PREFIX + tagPath;
         }
 
         tagPath = sanitize(tagPath);
@@ -61,16 +188,31 @@ public class TagManager {
     }
 
     public static String sanitize(String tagPath) {
-        tagPath = tagPath.replace(".", "_");
+        if (tagPath.indexOf('.') >= 0) {
+            tagPath = tagPath.replace('.', '_');
+        }
         return tagPath;
     }
 
+    public TagHandle resolve(String tagPath) {
+        return new TagHandle(fixTagPath(tagPath));
+    }
+
     public boolean tagExists(String tagPath) {
+        tagPath = fixTagPath(tagPath);
+        if (tagIndex.contains(indexKey(tagPath))) {
+            return true;
+        }
+
+        if (tagIndexComplete) {
+            return false;
+        }
+
         try {
-            tagPath = fixTagPath(tagPath);
             QualifiedValue value = readTag(tagPath);
             logger.debug("Checking if tag exists '" + tagPath + "' with value '" + value.toString() + "'");
             if (value.getQuality().getCode() != QualityCode.Bad_NotFound.getCode()) {
+                indexAdd(tagPath);
                 return true;
             }
         } catch (Throwable ex) {
@@ -110,13 +252,17 @@ public class TagManager {
     public void registerUDTs(List<TagConfiguration> udts, CollisionPolicy policy) throws Exception {
         List<TagConfiguration> finalUdts = new ArrayList<>();
         for (TagConfiguration udt : udts) {
-            if (!tagExists(udt.getPath().toStringFull())) {
+            // Only Ignore can skip existing tags; any other policy is asking for them to be updated
+            if (policy != CollisionPolicy.Ignore || !tagExists(udt.getPath().toStringFull())) {
                 finalUdts.add(udt);
                 logger.debug("Registering UDT: " + udt.toString());
             }
         }
         if (finalUdts.size() > 0) {
             tagProvider.saveTagConfigsAsync(finalUdts, policy).get();
+            for (TagConfiguration udt : finalUdts) {
+                indexAdd(fixTagPath(udt.getPath().toStringFull()));
+            }
         }
     }
 
@@ -142,6 +288,7 @@ public class TagManager {
         if (!tagExists(tagPath)) {
             logger.debug("Configuring tag '" + tagPath + "' with " + props.toString());
             managedTagProvider.configureTag(tagPath, props);
+            indexAdd(tagPath);
         }
     }
 
@@ -159,6 +306,54 @@ public class TagManager {
         tagPath = fixTagPath(tagPath);
         logger.debug("Updating tag '" + tagPath + "' to value '" + (value == null ? "null" : value.toString()) + "'");
         managedTagProvider.updateValue(tagPath, value, qualityCode);
+        publishedValues.put(tagPath, new PublishedValue(value, qualityCode));
+    }
+
+    public void tagUpdate(TagHandle handle, Object value) {
+        tagUpdate(handle, value, QualityCode.Good);
+    }
+
+    public void tagUpdate(TagHandle handle, Object value, QualityCode qualityCode) {
+        String tagPath = handle.getTagPath();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Updating tag '" + tagPath + "' to value '" + (value == null ? "null" : value.toString()) + "'");
+        }
+        managedTagProvider.updateValue(tagPath, value, qualityCode);
+        publishedValues.put(tagPath, new PublishedValue(value, qualityCode));
+    }
+
+    public TagWriteBatch newBatch() {
+        return new TagWriteBatch(this);
+    }
+
+    int submit(TagWriteBatch batch) {
+        int published = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            String tagPath = batch.getTagPath(i);
+            Object value = batch.getValue(i);
+            QualityCode qualityCode = batch.getQualityCode(i);
+            Date timestamp = batch.getTimestamp(i);
+
+            PublishedValue last = publishedValues.get(tagPath);
+            if (last != null && last.matches(value, qualityCode)) {
+                continue;
+            }
+
+            if (timestamp == null) {
+                managedTagProvider.updateValue(tagPath, value, qualityCode);
+            } else {
+                managedTagProvider.updateValue(tagPath, value, qualityCode, timestamp);
+            }
+            publishedValues.put(tagPath, new PublishedValue(value, qualityCode));
+            published++;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Submitted tag batch with " + batch.size() + " values, " + published + " changed");
+        }
+
+        batch.clear();
+        return published;
     }
 
     public void removeTag(String tagPath) {
@@ -166,13 +361,23 @@ public class TagManager {
         if (tagExists(tagPath)) {
             logger.debug("Removing tag '" + tagPath + "'");
             managedTagProvider.removeTag(tagPath);
+            indexRemove(tagPath);
         }
+
+        String childPrefix = tagPath + "/";
+        publishedValues.remove(tagPath);
+        publishedValues.keySet().removeIf(path -> path.startsWith(childPrefix));
     }
 
     public QualifiedValue readTag(String tagPath) throws Exception {
         return readTags(Arrays.asList(tagPath)).get(0);
     }
 
+    public QualifiedValue readTag(TagHandle handle) throws Exception {
+        logger.debug("Reading tag '" + handle.getTagPath() + "'");
+        return tagProvider.readAsync(Arrays.asList(handle.getParsedPath()), SecurityContext.systemContext()).get().get(0);
+    }
+
     public List<QualifiedValue> readTags(List<String> tagPaths) throws Exception {
         List<TagPath> tps = new ArrayList<>();
         for (String tagPath : tagPaths) {
@@ -183,4 +388,18 @@ public class TagManager {
         logger.debug("Reading tags [" + tps.stream().map(e -> e.toStringFull()).collect(Collectors.joining(",")) + "]");
         return tagProvider.readAsync(tps, SecurityContext.systemContext()).get();
     }
+
+    private static class PublishedValue {
+        private final Object value;
+        private final QualityCode qualityCode;
+
+        PublishedValue(Object value, QualityCode qualityCode) {
+            this.value = value;
+            this.qualityCode = qualityCode;
+        }
+
+        boolean matches(Object value, QualityCode qualityCode) {
+            return Objects.equals(this.value, value) && this.qualityCode.getCode() == qualityCode.getCode();
+        }
+    }
 }
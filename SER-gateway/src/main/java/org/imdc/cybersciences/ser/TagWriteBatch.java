@@ -0,0 +1,117 @@
+package org.imdc.cybersciences.ser;
+
+import com.inductiveautomation.ignition.common.model.values.QualityCode;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TagWriteBatch {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final TagManager tagManager;
+    private final Map<String, Integer> slots;
+    private String[] tagPaths;
+    private Object[] values;
+    private QualityCode[] qualityCodes;
+    private Date[] timestamps;
+    private int size;
+
+    TagWriteBatch(TagManager tagManager) {
+        this.tagManager = tagManager;
+        this.slots = new HashMap<>();
+        this.tagPaths = new String[INITIAL_CAPACITY];
+        this.values = new Object[INITIAL_CAPACITY];
+        this.qualityCodes = new QualityCode[INITIAL_CAPACITY];
+        this.timestamps = new Date[INITIAL_CAPACITY];
+    }
+
+    public TagWriteBatch update(String tagPath, Object value) {
+        return update(tagPath, value, QualityCode.Good);
+    }
+
+    public TagWriteBatch update(String tagPath, Object value, QualityCode qualityCode) {
+        return add(TagManager.fixTagPath(tagPath), value, qualityCode);
+    }
+
+    public TagWriteBatch update(TagHandle handle, Object value) {
+        return update(handle, value, QualityCode.Good);
+    }
+
+    public TagWriteBatch update(TagHandle handle, Object value, QualityCode qualityCode) {
+        return add(handle.getTagPath(), value, qualityCode, null);
+    }
+
+    public TagWriteBatch update(TagHandle handle, Object value, Date timestamp) {
+        return add(handle.getTagPath(), value, QualityCode.Good, timestamp);
+    }
+
+    private TagWriteBatch add(String tagPath, Object value, QualityCode qualityCode) {
+        return add(tagPath, value, qualityCode, null);
+    }
+
+    private TagWriteBatch add(String tagPath, Object value, QualityCode qualityCode, Date timestamp) {
+        // A path written more than once in a cycle only reaches the provider with its latest value
+        Integer slot = slots.get(tagPath);
+        if (slot != null) {
+            values[slot] = value;
+            qualityCodes[slot] = qualityCode;
+            timestamps[slot] = timestamp;
+            return this;
+        }
+
+        if (size == tagPaths.length) {
+            int capacity = size * 2;
+            tagPaths = Arrays.copyOf(tagPaths, capacity);
+            values = Arrays.copyOf(values, capacity);
+            qualityCodes = Arrays.copyOf(qualityCodes, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+
+        tagPaths[size] = tagPath;
+        values[size] = value;
+        qualityCodes[size] = qualityCode;
+        timestamps[size] = timestamp;
+        slots.put(tagPath, size);
+        size++;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int submit() {
+        return tagManager.submit(this);
+    }
+
+    String getTagPath(int index) {
+        return tagPaths[index];
+    }
+
+    Object getValue(int index) {
+        return values[index];
+    }
+
+    QualityCode getQualityCode(int index) {
+        return qualityCodes[index];
+    }
+
+    Date getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    void clear() {
+        Arrays.fill(tagPaths, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(qualityCodes, 0, size, null);
+        Arrays.fill(timestamps, 0, size, null);
+        slots.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,55 @@
+package org.imdc.cybersciences.ser;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class EventCheckpointTest {
+    @Test
+    public void resumesFromCheckpoint() throws IOException {
+        EventCheckpoint checkpoint = checkpoint();
+        assertNull(checkpoint.resume(500, 500));
+
+        checkpoint.polled(500);
+        checkpoint.stored(500);
+        assertEquals(500, checkpoint.resume(500, 500));
+        assertEquals(500, checkpoint.resume(620, 620));
+        assertEquals(500, checkpoint.getStoredSequenceNumber());
+    }
+
+    @Test
+    public void resetsWhenDeviceSequenceFallsBehind() throws IOException {
+        File dir = Files.createTempDirectory("checkpoint").toFile();
+        EventCheckpoint checkpoint = new EventCheckpoint(LoggerFactory.getLogger("SER.Test"), dir, "SER1");
+        checkpoint.polled(120000);
+        checkpoint.stored(120000);
+
+        // Event log cleared: the device now holds 40 events numbered 1-40
+        assertEquals(0, checkpoint.resume(40, 40));
+        assertEquals(0, checkpoint.getStoredSequenceNumber());
+
+        checkpoint.polled(40);
+        assertEquals(40, checkpoint.resume(40, 40));
+
+        // Device replaced with one that has kept counting, but not past the old checkpoint
+        checkpoint.polled(120000);
+        checkpoint.stored(120000);
+        assertEquals(90000 - 8192, checkpoint.resume(90000, 8192));
+
+        // The reset position is what a restart resumes from
+        EventCheckpoint reloaded = new EventCheckpoint(LoggerFactory.getLogger("SER.Test"), dir, "SER1");
+        reloaded.load();
+        assertEquals(90000 - 8192, reloaded.getStoredSequenceNumber());
+        assertEquals(90000 - 8192, reloaded.getPolledSequenceNumber());
+    }
+
+    private static EventCheckpoint checkpoint() throws IOException {
+        return new EventCheckpoint(LoggerFactory.getLogger("SER.Test"), Files.createTempDirectory("checkpoint").toFile(), "SER1");
+    }
+}
@@ -0,0 +1,196 @@
+package org.imdc.cybersciences.ser;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventLoaderTest {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final String DEVICE = "SER1";
+
+    private Connection con;
+
+    @BeforeEach
+    public void open() throws SQLException {
+        con = DriverManager.getConnection("jdbc:h2:mem:EventLoaderTest" + DATABASES.incrementAndGet());
+        con.setAutoCommit(false);
+    }
+
+    @AfterEach
+    public void close() throws SQLException {
+        con.close();
+    }
+
+    @Test
+    public void picksLoaderForProduct() {
+        assertTrue(EventLoader.forProduct("H2") instanceof EventLoader.MultiRowValues);
+        assertTrue(EventLoader.forProduct("PostgreSQL") instanceof EventLoader.PostgresCopy);
+        assertTrue(EventLoader.forProduct("Microsoft SQL Server") instanceof EventLoader.SqlServerBulkCopy);
+        assertTrue(EventLoader.forProduct("MySQL") instanceof EventLoader.MultiRowValues);
+        assertTrue(EventLoader.forProduct("Oracle") instanceof EventLoader.BatchInsert);
+        assertTrue(EventLoader.forProduct(null) instanceof EventLoader.BatchInsert);
+    }
+
+    @Test
+    public void createsKeyIndexOnce() throws Exception {
+        EventTarget target = createTable(EventLayout.Standard);
+        assertFalse(EventLoader.forProduct("H2").createKeyIndex(con, target));
+    }
+
+    @Test
+    public void multiRowValuesMergeSkipsDuplicates() throws Exception {
+        EventTarget target = createTable(EventLayout.Standard);
+        EventLoader loader = new EventLoader.MultiRowValues(200, EventLoader.InsertSyntax.H2Merge);
+
+        load(loader, target, events(0, 450));
+        load(loader, target, events(300, 450));
+
+        assertEquals(750, count());
+        assertStandardRow(events(749, 1).get(0));
+    }
+
+    @Test
+    public void multiRowValuesPlainFallsBackToRowByRow() throws Exception {
+        EventTarget target = createTable(EventLayout.Standard);
+        EventLoader loader = new EventLoader.MultiRowValues(100, EventLoader.InsertSyntax.Plain);
+
+        load(loader, target, events(0, 250));
+        load(loader, target, events(200, 100));
+
+        assertEquals(300, count());
+        assertStandardRow(events(299, 1).get(0));
+    }
+
+    @Test
+    public void batchInsertSkipsDuplicates() throws Exception {
+        EventTarget target = createTable(EventLayout.Standard);
+        EventLoader loader = new EventLoader.BatchInsert(EventLoader.InsertSyntax.Plain);
+
+        load(loader, target, events(0, 120));
+        load(loader, target, events(100, 50));
+
+        assertEquals(150, count());
+        assertStandardRow(events(149, 1).get(0));
+    }
+
+    @Test
+    public void keyIncludesDevice() throws Exception {
+        EventTarget target = createTable(EventLayout.Standard);
+        EventLoader loader = new EventLoader.MultiRowValues(200, EventLoader.InsertSyntax.Plain);
+
+        List<EventParser.Event> events = events(0, 10);
+        loader.load(con, target, events, Collections.nCopies(events.size(), "SER1"));
+        loader.load(con, target, events, Collections.nCopies(events.size(), "SER2"));
+        con.commit();
+
+        assertEquals(20, count());
+    }
+
+    @Test
+    public void compactLayoutStoresCodesAndBitmap() throws Exception {
+        EventTarget target = createTable(EventLayout.Compact);
+        EventLoader loader = new EventLoader.MultiRowValues(200, EventLoader.InsertSyntax.H2Merge);
+
+        List<EventParser.Event> events = events(0, 64);
+        load(loader, target, events);
+        load(loader, target, events);
+        assertEquals(64, count());
+
+        EventParser.Event event = events.get(5);
+        try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("SELECT EVENT_CODE, CHANNEL, STATUS, COINCIDENT_STATUS, TIME_QUALITY FROM SER_EVENTS WHERE SEQUENCE_NUMBER = " + event.getSequenceNumber())) {
+            assertTrue(rs.next());
+            assertEquals(event.getEventCode().ordinal(), rs.getInt(1));
+            assertEquals(event.getInput(), rs.getInt(2));
+            assertEquals(event.getInputStatus().ordinal(), rs.getInt(3));
+            assertEquals((int) event.getInputCoincidentStatus(), rs.getInt(4));
+            assertEquals(event.getTimeQuality().ordinal(), rs.getInt(5));
+        }
+
+        // Every event has input 32 on (the sign bit) and input 1 on for even sequence numbers
+        assertEquals(64, countWhere(EventLayout.coincidentCondition("H2", "\"COINCIDENT_STATUS\"", EventLayout.coincidentMask(32), false)));
+        assertEquals(32, countWhere(EventLayout.coincidentCondition("H2", "\"COINCIDENT_STATUS\"", EventLayout.coincidentMask(1), false)));
+        assertEquals(32, countWhere(EventLayout.coincidentCondition("H2", "\"COINCIDENT_STATUS\"", EventLayout.coincidentMask(1, 32), true)));
+    }
+
+    private EventTarget createTable(EventLayout layout) throws Exception {
+        EventTarget target;
+        try (Statement st = con.createStatement()) {
+            if (layout == EventLayout.Compact) {
+                st.execute("CREATE TABLE SER_EVENTS (EVENT_ID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, DEVICE VARCHAR(255), " +
+                        "SEQUENCE_NUMBER INT, T_STAMP BIGINT, EVENT_CODE SMALLINT, CHANNEL SMALLINT, STATUS SMALLINT, COINCIDENT_STATUS INT, TIME_QUALITY SMALLINT)");
+                target = new EventTarget("SER_EVENTS", "\"", layout, "SEQUENCE_NUMBER", "T_STAMP", "EVENT_CODE", "CHANNEL", "STATUS", "COINCIDENT_STATUS", "TIME_QUALITY", "DEVICE");
+            } else {
+                st.execute("CREATE TABLE SER_EVENTS (EVENT_ID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, DEVICE VARCHAR(255), " +
+                        "SEQUENCE_NUMBER INT, T_STAMP BIGINT, EVENT_CODE INT, EVENT_TYPE VARCHAR(255), CHANNEL INT, STATUS VARCHAR(255), COINCIDENT_STATUS BIGINT, TIME_QUALITY VARCHAR(255))");
+                target = new EventTarget("SER_EVENTS", "\"", layout, "SEQUENCE_NUMBER", "T_STAMP", "EVENT_CODE", "EVENT_TYPE", "CHANNEL", "STATUS", "COINCIDENT_STATUS", "TIME_QUALITY", "DEVICE");
+            }
+        }
+
+        assertTrue(EventLoader.forProduct("H2").createKeyIndex(con, target));
+        con.commit();
+        return target;
+    }
+
+    private void load(EventLoader loader, EventTarget target, List<EventParser.Event> events) throws Exception {
+        loader.load(con, target, events, Collections.nCopies(events.size(), DEVICE));
+        con.commit();
+    }
+
+    private int count() throws SQLException {
+        return countWhere("1 = 1");
+    }
+
+    private int countWhere(String condition) throws SQLException {
+        try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM SER_EVENTS WHERE " + condition)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private void assertStandardRow(EventParser.Event event) throws SQLException {
+        try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("SELECT DEVICE, T_STAMP, EVENT_CODE, EVENT_TYPE, CHANNEL, STATUS, COINCIDENT_STATUS, TIME_QUALITY FROM SER_EVENTS WHERE SEQUENCE_NUMBER = " + event.getSequenceNumber())) {
+            assertTrue(rs.next());
+            assertEquals(DEVICE, rs.getString(1));
+            assertEquals(event.getMsTime(), rs.getLong(2));
+            assertEquals(event.getEventCode().ordinal(), rs.getInt(3));
+            assertEquals(event.getEventCode().getDisplay(), rs.getString(4));
+            assertEquals(event.getInput(), rs.getInt(5));
+            assertEquals(event.getInputStatus().toString(), rs.getString(6));
+            assertEquals(event.getInputCoincidentStatus(), rs.getLong(7));
+            assertEquals(event.getTimeQuality().toString(), rs.getString(8));
+            assertFalse(rs.next());
+        }
+    }
+
+    private static List<EventParser.Event> events(int first, int count) {
+        EventParser.EventCode[] codes = EventParser.EventCode.values();
+        List<EventParser.Event> ret = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            long coincident = 0x80000000L | (i % 2 == 0 ? 1 : 0) | ((long) (i % 30) << 1);
+            ret.add(new EventParser.Event(
+                    codes[i % codes.length],
+                    i % 32,
+                    1000 + i,
+                    coincident,
+                    EventParser.InputStatus.values()[i % 2],
+                    EventParser.DST.values()[i % 2],
+                    EventParser.TimeQuality.values()[i % 4],
+                    1700000000000L + i * 10L));
+        }
+        return ret;
+    }
+}
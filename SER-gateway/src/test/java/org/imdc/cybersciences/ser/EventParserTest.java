@@ -0,0 +1,103 @@
+package org.imdc.cybersciences.ser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EventParserTest {
+    @Test
+    public void matchesLegacyDecoder() throws IOException {
+        List<String> records = records();
+        assertFalse(records.isEmpty());
+
+        for (String record : records) {
+            Object[] expected;
+            try {
+                expected = legacyParse(record);
+            } catch (NumberFormatException ex) {
+                assertThrows(NumberFormatException.class, () -> EventParser.parse(record), record);
+                continue;
+            }
+
+            EventParser.Event event = EventParser.parse(record);
+            Object[] actual = {
+                    event.getEventCode(),
+                    event.getInput(),
+                    event.getInputStatus(),
+                    event.getDst(),
+                    event.getTimeQuality(),
+                    event.getMsTime(),
+                    event.getSequenceNumber(),
+                    event.getInputCoincidentStatus()
+            };
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], actual[i], record + " field " + i);
+            }
+        }
+    }
+
+    @Test
+    public void acceptsCharSequence() {
+        String record = "0021-413b-0004-2f00-86a3-0001-1dc5-c9c4";
+        EventParser.Event fromString = EventParser.parse(record);
+        EventParser.Event fromBuilder = EventParser.parse(new StringBuilder(record));
+        assertEquals(fromString.getMsTime(), fromBuilder.getMsTime());
+        assertEquals(fromString.getSequenceNumber(), fromBuilder.getSequenceNumber());
+        assertEquals(fromString.getInputCoincidentStatus(), fromBuilder.getInputCoincidentStatus());
+    }
+
+    @Test
+    public void rejectsMalformedRecords() {
+        assertThrows(IllegalArgumentException.class, () -> EventParser.parse("0021-413b-0004"));
+        assertThrows(NumberFormatException.class, () -> EventParser.parse("0021-413b-0004-2f00-86a3-0001-1dc5-c9cz"));
+    }
+
+    private static List<String> records() throws IOException {
+        List<String> ret = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(EventParserTest.class.getResourceAsStream("event-records.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    ret.add(line);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * The substring based decoder EventParser.parse replaced, kept as the reference for its output.
+     */
+    private static Object[] legacyParse(String event) {
+        event = event.replace("-", "");
+
+        Long eventDescPart1 = Long.parseLong(event.substring(0, 4), 16);
+        Long eventDescPart2 = Long.parseLong(event.substring(4, 8), 16);
+
+        EventParser.EventCode eventCode = EventParser.EventCode.values()[(int) (eventDescPart1 & 0x1F)];
+        Integer inputs = (int) (eventDescPart1 >> 5) & 0x1F;
+        EventParser.InputStatus inputStatus = EventParser.InputStatus.values()[(int) (eventDescPart1 >> 10) & 0x1];
+        EventParser.DST dst = EventParser.DST.values()[(int) (eventDescPart1 >> 11) & 0x1];
+
+        EventParser.TimeQuality timeQuality = EventParser.TimeQuality.values()[(int) (eventDescPart2 >> 14) & 0x3];
+
+        Integer ms = (int) (eventDescPart2 & 0x3FF);
+        Integer seconds = 441792000 + Integer.parseInt(event.substring(12, 16) + event.substring(8, 12), 16);
+        Long milliseconds = seconds * 1000L + ms;
+
+        Integer sequenceNumber = Integer.parseInt(event.substring(20, 24) + event.substring(16, 20), 16);
+        Long inputCoincidentStatus = Long.parseLong(event.substring(28, 32) + event.substring(24, 28), 16);
+
+        return new Object[]{eventCode, inputs + 1, inputStatus, dst, timeQuality, milliseconds, sequenceNumber, inputCoincidentStatus};
+    }
+}
@@ -0,0 +1,56 @@
+package org.imdc.cybersciences.ser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EventPartitionsTest {
+    @Test
+    public void monthlyTables() {
+        EventPartitions partitions = new EventPartitions("SER_EVENTS", EventPartitions.Mode.Monthly);
+        long time = LocalDate.of(2026, 12, 31).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+        assertEquals("SER_EVENTS_202612", partitions.tableFor(time));
+        assertEquals(millis(2027, 1, 1), partitions.endOf("SER_EVENTS_202612"));
+        assertEquals(millis(2027, 1, 1), partitions.endOf("ser_events_202612"));
+        assertEquals(-1, partitions.endOf("SER_EVENTS"));
+        assertEquals(-1, partitions.endOf("SER_EVENTS_ARCHIVE"));
+        assertEquals(-1, partitions.endOf("OTHER_EVENTS_202612"));
+    }
+
+    @Test
+    public void weeklyTables() {
+        EventPartitions partitions = new EventPartitions("SER_EVENTS", EventPartitions.Mode.Weekly);
+        long time = LocalDate.of(2027, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+        // 2026 has 53 ISO weeks; the last one runs into January 2027
+        assertEquals("SER_EVENTS_2026W53", partitions.tableFor(time));
+        assertEquals(millis(2027, 1, 4), partitions.endOf("SER_EVENTS_2026W53"));
+        assertEquals(millis(2026, 1, 5), partitions.endOf("SER_EVENTS_2026W01"));
+    }
+
+    @Test
+    public void invalidMonthIsNotAPartition() {
+        EventPartitions partitions = new EventPartitions("SER_EVENTS", EventPartitions.Mode.Monthly);
+
+        assertEquals(-1, partitions.endOf("SER_EVENTS_202613"));
+        assertEquals(-1, partitions.endOf("SER_EVENTS_202600"));
+    }
+
+    @Test
+    public void invalidWeekIsNotAPartition() {
+        EventPartitions partitions = new EventPartitions("SER_EVENTS", EventPartitions.Mode.Weekly);
+
+        // 2025 only has 52 ISO weeks
+        assertEquals(-1, partitions.endOf("SER_EVENTS_2025W53"));
+        assertEquals(-1, partitions.endOf("SER_EVENTS_2026W54"));
+        assertEquals(-1, partitions.endOf("SER_EVENTS_2026W00"));
+    }
+
+    private static long millis(int year, int month, int day) {
+        return LocalDate.of(year, month, day).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+}
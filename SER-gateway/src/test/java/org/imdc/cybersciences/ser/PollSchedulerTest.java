@@ -0,0 +1,78 @@
+package org.imdc.cybersciences.ser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PollSchedulerTest {
+    @Test
+    public void serialExecutorRunsOneTaskAtATime() throws Exception {
+        PollScheduler scheduler = new PollScheduler();
+        scheduler.startup();
+        try {
+            Executor serial = scheduler.newSerialExecutor();
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<Integer> order = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(20);
+
+            for (int i = 0; i < 20; i++) {
+                int index = i;
+                serial.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    order.add(index);
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(1, maxRunning.get());
+            for (int i = 0; i < 20; i++) {
+                assertEquals(i, order.get(i));
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void blockedSerialExecutorLeavesOtherWorkersFree() throws Exception {
+        PollScheduler scheduler = new PollScheduler();
+        scheduler.startup();
+        try {
+            // One device stalls with plenty of work queued behind it
+            Executor slow = scheduler.newSerialExecutor();
+            CountDownLatch release = new CountDownLatch(1);
+            for (int i = 0; i < 10; i++) {
+                slow.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            CountDownLatch other = new CountDownLatch(1);
+            scheduler.newSerialExecutor().execute(other::countDown);
+            assertTrue(other.await(10, TimeUnit.SECONDS));
+            release.countDown();
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
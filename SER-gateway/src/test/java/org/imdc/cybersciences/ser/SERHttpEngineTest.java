@@ -0,0 +1,149 @@
+package org.imdc.cybersciences.ser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SERHttpEngineTest {
+    @Test
+    public void stalledBodyTimesOut() throws Exception {
+        SERHttpEngine engine = new SERHttpEngine(Duration.ofMillis(500));
+        try (StalledServer server = new StalledServer()) {
+            engine.startup();
+            URI uri = URI.create("http://127.0.0.1:" + server.getPort() + "/events");
+
+            HttpResponse<SERHttpEngine.ResponseBody> response = engine.get(uri, null, 1).get(10, TimeUnit.SECONDS);
+            long start = System.nanoTime();
+            try (SERHttpEngine.ResponseBody body = response.body()) {
+                assertThrows(HttpTimeoutException.class, () -> {
+                    while (body.read() >= 0) {
+                        // Drain until the server stalls
+                    }
+                });
+                assertEquals(7, body.getBytesRead());
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+
+            // The timed out body gave its connection back, so a second request to the host isn't queued behind it
+            HttpResponse<SERHttpEngine.ResponseBody> next = engine.get(uri, null, 1).get(10, TimeUnit.SECONDS);
+            next.body().close();
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelReleasesConnection() throws Exception {
+        SERHttpEngine engine = new SERHttpEngine(Duration.ofSeconds(30));
+        try (StalledServer server = new StalledServer()) {
+            engine.startup();
+            URI stalled = URI.create("http://127.0.0.1:" + server.getPort() + "/no-headers");
+
+            // One request waits on headers that never come and holds the only connection, the next queues behind it
+            CompletableFuture<HttpResponse<SERHttpEngine.ResponseBody>> inFlight = engine.get(stalled, null, 1);
+            CompletableFuture<HttpResponse<SERHttpEngine.ResponseBody>> queued = engine.get(stalled, null, 1);
+            server.awaitRequests(1);
+
+            queued.cancel(true);
+            inFlight.cancel(true);
+
+            HttpResponse<SERHttpEngine.ResponseBody> next = engine.get(URI.create("http://127.0.0.1:" + server.getPort() + "/events"), null, 1).get(10, TimeUnit.SECONDS);
+            next.body().close();
+            assertEquals(2, server.getRequests());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private static class StalledServer implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final List<Socket> sockets;
+        private volatile int requests;
+
+        StalledServer() throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            this.sockets = new CopyOnWriteArrayList<>();
+
+            Thread t = new Thread(this::serve, "StalledServer");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getRequests() {
+            return requests;
+        }
+
+        void awaitRequests(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (requests < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        private void serve() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    sockets.add(socket);
+                    String requestLine = readHeaders(socket.getInputStream());
+                    requests++;
+                    if (requestLine.contains("/no-headers")) {
+                        continue;
+                    }
+
+                    // Promise more of the body than is ever sent
+                    OutputStream out = socket.getOutputStream();
+                    out.write("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 1000\r\n\r\n{\"data\"".getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                } catch (IOException ex) {
+                    return;
+                }
+            }
+        }
+
+        private static String readHeaders(InputStream in) throws IOException {
+            StringBuilder headers = new StringBuilder();
+            int matched = 0;
+            while (matched < 4) {
+                int b = in.read();
+                if (b < 0) {
+                    break;
+                }
+                headers.append((char) b);
+                matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+            }
+
+            int end = headers.indexOf("\r\n");
+            return end < 0 ? headers.toString() : headers.substring(0, end);
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+}